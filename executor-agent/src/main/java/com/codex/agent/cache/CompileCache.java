@@ -0,0 +1,252 @@
+package com.codex.agent.cache;
+
+import com.codex.agent.execution.Workspace;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of compiled artifacts (binaries, {@code .class}
+ * files) on the agent's local disk.
+ *
+ * <p>Key = SHA-256 of (source code, docker image, compile command, source
+ * file name) — everything that determines what the compiler produces. A hit
+ * copies the cached artifacts into the submission's workspace and the
+ * compile step is skipped entirely. Typical hits: "Run" followed by "Submit"
+ * of the same code, backend retries after an agent error, and
+ * {@code SolutionVerifier} sending one reference solution per input.
+ *
+ * <p>Layout: {@code <execution.compile-cache.dir>/<key>/...artifacts} plus a
+ * {@code .codex-compile-ms} marker holding the original compile time, so the
+ * "saved compile time" counter survives restarts. Entries are evicted
+ * least-recently-used once the total size exceeds
+ * {@code execution.compile-cache.max-bytes}.
+ *
+ * <p>Only successful compiles are cached.
+ */
+@Service
+@Slf4j
+public class CompileCache {
+
+    private static final String COMPILE_MS_FILE = ".codex-compile-ms";
+
+    @Value("${execution.compile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.compile-cache.dir:/tmp/codex/compile-cache}")
+    private String cacheDir;
+
+    @Value("${execution.compile-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    /** key -> entry, in access order (eldest = least recently used). Guarded by {@code this}. */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stores = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong savedCompileMs = new AtomicLong(0);
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            log.info("Compile cache disabled");
+            return;
+        }
+        Path root = Paths.get(cacheDir);
+        Files.createDirectories(root);
+
+        // Rebuild the index from disk, oldest first so LRU order roughly survives restarts.
+        try (Stream<Path> entries = Files.list(root)) {
+            List<Path> dirs = entries.filter(Files::isDirectory).sorted(Comparator.comparingLong(CompileCache::mtime)).toList();
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (name.contains(".tmp-")) {
+                    deleteRecursive(dir);   // half-written entry from a crash
+                    continue;
+                }
+                long size = sizeOf(dir);
+                index.put(name, new Entry(size, readCompileMs(dir)));
+                totalBytes += size;
+            }
+        }
+        evictIfNeeded();
+        log.info("Compile cache ready at {}: {} entries, {} bytes (max {})", root, index.size(), totalBytes, maxBytes);
+    }
+
+    /** Cache key for a compile, or null if caching is off or nothing is compiled. */
+    public String key(String sourceCode, String dockerImage, String compileCommand, String fileName) {
+        if (!enabled || compileCommand == null || compileCommand.isBlank()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{sourceCode, dockerImage, compileCommand, fileName}) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Copy cached artifacts for {@code key} into {@code workspace}. The copy
+     * runs outside the monitor (for a tmpfs workspace it is a docker exec);
+     * eviction racing it counts as a miss.
+     *
+     * @return true on a hit (compile can be skipped), false on a miss
+     */
+    public boolean restore(String key, Workspace workspace) {
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        Path source = Paths.get(cacheDir, key);
+        try {
+            workspace.importFrom(source, Set.of(COMPILE_MS_FILE));
+            hits.incrementAndGet();
+            savedCompileMs.addAndGet(entry.compileMs);
+            return true;
+        } catch (IOException e) {
+            // Corrupt or partially deleted entry: drop it and compile normally.
+            log.warn("Compile cache entry {} unreadable, dropping: {}", key, e.getMessage());
+            remove(key);
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Snapshot everything the compiler left in {@code workspace} (except the
+     * given inputs, e.g. the source file) under {@code key}.
+     */
+    public void store(String key, Workspace workspace, Set<String> excludedNames, long compileMs) {
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                return;
+            }
+        }
+        Path root = Paths.get(cacheDir);
+        Path staging = root.resolve(key + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(staging);
+            workspace.exportTo(staging, excludedNames);
+            Files.writeString(staging.resolve(COMPILE_MS_FILE), Long.toString(compileMs));
+            long size = sizeOf(staging);
+
+            synchronized (this) {
+                if (index.containsKey(key)) {
+                    deleteRecursive(staging);
+                    return;
+                }
+                Files.move(staging, root.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+                index.put(key, new Entry(size, compileMs));
+                totalBytes += size;
+                stores.incrementAndGet();
+                evictIfNeeded();
+            }
+            log.debug("Cached compile artifacts {} ({} bytes, compile took {}ms)", key, size, compileMs);
+        } catch (IOException e) {
+            log.warn("Failed to cache compile artifacts {}: {}", key, e.getMessage());
+            deleteRecursive(staging);
+        }
+    }
+
+    /** Hit/miss counters and saved compile time for {@code /v1/healthz}. */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", index.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("savedCompileMs", savedCompileMs.get());
+        return stats;
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    /** Caller holds the monitor. */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue().sizeBytes;
+            deleteRecursive(Paths.get(cacheDir, eldest.getKey()));
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Entry entry = index.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.sizeBytes;
+        }
+        deleteRecursive(Paths.get(cacheDir, key));
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private static long readCompileMs(Path dir) {
+        try {
+            return Long.parseLong(Files.readString(dir.resolve(COMPILE_MS_FILE)).trim());
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static long mtime(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    private static void deleteRecursive(Path path) {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete compile cache path {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record Entry(long sizeBytes, long compileMs) {
+    }
+}
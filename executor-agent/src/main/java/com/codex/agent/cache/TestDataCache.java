@@ -0,0 +1,278 @@
+package com.codex.agent.cache;
+
+import com.codex.agent.dto.ExecuteRequest;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of test-case data (stdin and expected stdout) on
+ * the agent's local disk, so the backend can send a hash instead of the same
+ * megabytes of JSON on every submission to a problem.
+ *
+ * <p>Protocol (see {@code BlobController}): the backend asks which of a
+ * request's hashes are {@link #missing}, uploads only those ({@link #put}),
+ * then sends the execute request with {@code stdinHash} /
+ * {@code expectedStdoutHash} set and the inline fields left null.
+ * {@link #resolve} fills the inline fields back in before the request is
+ * admitted; if a blob was evicted in between, the request is refused with
+ * the missing hashes and the backend re-sends the data inline.
+ *
+ * <p>Key = lowercase hex SHA-256 of the UTF-8 bytes; uploads whose content
+ * does not hash to their key are rejected. Layout:
+ * {@code <execution.test-data-cache.dir>/<key>}, one file per blob, evicted
+ * least-recently-used once the total exceeds
+ * {@code execution.test-data-cache.max-bytes}.
+ */
+@Service
+@Slf4j
+public class TestDataCache {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${execution.test-data-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${execution.test-data-cache.dir:/tmp/codex/test-data}")
+    private String cacheDir;
+
+    @Value("${execution.test-data-cache.max-bytes:1073741824}")
+    private long maxBytes;
+
+    /** key -> size in bytes, in access order (eldest = least recently used). Guarded by {@code this}. */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stores = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong rejectedRequests = new AtomicLong(0);
+    private final AtomicLong resolvedBytes = new AtomicLong(0);
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            log.info("Test data cache disabled");
+            return;
+        }
+        Path root = Paths.get(cacheDir);
+        Files.createDirectories(root);
+
+        // Rebuild the index from disk, oldest first so LRU order roughly survives restarts.
+        try (Stream<Path> entries = Files.list(root)) {
+            List<Path> files = entries.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                    .toList();
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!KEY.matcher(name).matches()) {
+                    Files.deleteIfExists(file);     // half-written upload from a crash
+                    continue;
+                }
+                long size = Files.size(file);
+                index.put(name, size);
+                totalBytes += size;
+            }
+        }
+        evictIfNeeded();
+        log.info("Test data cache ready at {}: {} blobs, {} bytes (max {})", root, index.size(), totalBytes, maxBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The subset of {@code keys} not held here, in request order. Everything, when the cache is off. */
+    public synchronized List<String> missing(Collection<String> keys) {
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (!enabled || !index.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Store one blob under its key.
+     *
+     * @throws IllegalArgumentException if the content does not hash to {@code key}
+     */
+    public void put(String key, String content) {
+        if (!enabled) {
+            return;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (!key.equals(sha256(bytes))) {
+            throw new IllegalArgumentException("content does not match hash " + key);
+        }
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                return;
+            }
+        }
+        Path root = Paths.get(cacheDir);
+        Path staging = root.resolve(key + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.write(staging, bytes);
+            synchronized (this) {
+                if (index.containsKey(key)) {
+                    Files.deleteIfExists(staging);
+                    return;
+                }
+                Files.move(staging, root.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+                index.put(key, (long) bytes.length);
+                totalBytes += bytes.length;
+                stores.incrementAndGet();
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store test data blob {}: {}", key, e.getMessage());
+            try {
+                Files.deleteIfExists(staging);
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+
+    /**
+     * Replace every {@code stdinHash} / {@code expectedStdoutHash} in the
+     * request with the blob's content. Returns the hashes that are not held
+     * here (the request is left partially resolved and must be refused), or
+     * an empty list once every test case carries its data inline.
+     */
+    public List<String> resolve(ExecuteRequest request) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (ExecuteRequest.TestCase testCase : request.getTestCases()) {
+            if (testCase.getStdinHash() != null) {
+                String stdin = read(testCase.getStdinHash());
+                if (stdin == null) {
+                    missing.add(testCase.getStdinHash());
+                } else {
+                    testCase.setStdin(stdin);
+                }
+            }
+            if (testCase.getExpectedStdoutHash() != null) {
+                String expected = read(testCase.getExpectedStdoutHash());
+                if (expected == null) {
+                    missing.add(testCase.getExpectedStdoutHash());
+                } else {
+                    testCase.setExpectedStdout(expected);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            rejectedRequests.incrementAndGet();
+            log.info("Submission {}: {} test data blob(s) not cached, asking the backend to resend inline",
+                    request.getSubmissionId(), missing.size());
+        }
+        return List.copyOf(missing);
+    }
+
+    /** Hit/miss counters for {@code /v1/healthz}. */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("blobs", index.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("rejectedRequests", rejectedRequests.get());
+        stats.put("resolvedBytes", resolvedBytes.get());
+        return stats;
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    /** Blob content, or null on a miss. Reads outside the monitor; eviction racing a read counts as a miss. */
+    private String read(String key) {
+        synchronized (this) {
+            if (!enabled || !index.containsKey(key)) {      // containsKey does not touch LRU order...
+                misses.incrementAndGet();
+                return null;
+            }
+            index.get(key);                                 // ...get does
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(Paths.get(cacheDir, key));
+            hits.incrementAndGet();
+            resolvedBytes.addAndGet(bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException e) {
+            log.warn("Test data blob {} unreadable, dropping: {}", key, e.getMessage());
+            remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /** Caller holds the monitor. */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            delete(eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        delete(key);
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(Paths.get(cacheDir, key));
+        } catch (IOException e) {
+            log.warn("Failed to delete test data blob {}: {}", key, e.getMessage());
+        }
+    }
+}
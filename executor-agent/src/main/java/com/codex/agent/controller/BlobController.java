@@ -0,0 +1,58 @@
+package com.codex.agent.controller;
+
+import com.codex.agent.cache.TestDataCache;
+import com.codex.agent.dto.BlobUploadRequest;
+import com.codex.agent.dto.MissingBlobsRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Upload side of the content-addressed test data cache.
+ *
+ * <p>Exposed paths:
+ * <ul>
+ *   <li>{@code POST /v1/blobs/missing} — which of these hashes does the agent lack?</li>
+ *   <li>{@code POST /v1/blobs} — store blobs; 400 if any value does not match its hash
+ *   (the others are still stored)</li>
+ * </ul>
+ * Execute requests then reference the data by hash; see {@link TestDataCache}.
+ * With the cache disabled every hash is reported missing, so a backend keeps
+ * sending test data inline.
+ */
+@RestController
+@RequestMapping("/v1/blobs")
+@RequiredArgsConstructor
+public class BlobController {
+
+    private final TestDataCache testDataCache;
+
+    @PostMapping("/missing")
+    public ResponseEntity<?> missing(@Valid @RequestBody MissingBlobsRequest request) {
+        return ResponseEntity.ok(Map.of("missing", testDataCache.missing(request.getHashes())));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> upload(@Valid @RequestBody BlobUploadRequest request) {
+        int rejected = 0;
+        for (Map.Entry<String, String> blob : request.getBlobs().entrySet()) {
+            try {
+                testDataCache.put(blob.getKey(), blob.getValue() == null ? "" : blob.getValue());
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", rejected + " blob(s) did not match their hash"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
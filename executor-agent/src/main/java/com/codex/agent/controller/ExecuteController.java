@@ -1,28 +1,41 @@
 package com.codex.agent.controller;
 
+import com.codex.agent.cache.CompileCache;
+import com.codex.agent.cache.TestDataCache;
 import com.codex.agent.dto.ExecuteRequest;
 import com.codex.agent.dto.ExecuteResponse;
+import com.codex.agent.dto.ExecutionEvent;
+import com.codex.agent.execution.DockerExecutor;
+import com.codex.agent.pool.ContainerPool;
+import com.codex.agent.job.JobService;
+import com.codex.agent.service.ExecutionListener;
 import com.codex.agent.service.ExecutionRunner;
+import com.codex.agent.service.ExecutionSlots;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dockerjava.api.DockerClient;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,16 +44,22 @@ import java.util.concurrent.TimeUnit;
  * <p>Exposed paths:
  * <ul>
  *   <li>{@code POST /v1/execute} — run a submission, return verdict + per-test results</li>
- *   <li>{@code GET  /v1/healthz} — liveness + Docker daemon ping + free disk in temp dir</li>
+ *   <li>{@code POST /v1/execute/stream} — same, as NDJSON {@link ExecutionEvent}s: compile
+ *   finished, each test as it finishes, then the final result</li>
+ *   <li>{@code GET  /v1/healthz} — liveness + Docker daemon ping + free disk in temp dir + warm pool occupancy
+ *   + compile / test data cache hit rates + job queue depth + stray-process cleanup counters</li>
  *   <li>{@code GET  /v1/version} — agent version info</li>
  * </ul>
  *
  * <p>Hardening:
  * <ul>
- *   <li><b>Concurrency cap</b> — a semaphore caps in-flight executions so a small EC2 box
- *   doesn't OOM under burst load. Tunable via {@code executor.agent.max-concurrent}.</li>
+ *   <li><b>Concurrency cap</b> — {@link ExecutionSlots} caps in-flight executions (shared with
+ *   the job workers) so a small EC2 box doesn't OOM under burst load.</li>
  *   <li><b>Idempotency</b> — repeated POSTs with the same {@code submissionId} return the
  *   cached result for 5 minutes instead of re-running. Insurance against backend retries.</li>
+ *   <li><b>Test data by hash</b> — test cases may reference {@link TestDataCache} blobs instead of
+ *   carrying their data; a request naming a blob the agent lacks gets 409 with the missing
+ *   hashes before it takes a slot.</li>
  * </ul>
  */
 @RestController
@@ -50,10 +69,14 @@ import java.util.concurrent.TimeUnit;
 public class ExecuteController {
 
     private final ExecutionRunner executionRunner;
+    private final DockerExecutor dockerExecutor;
     private final DockerClient dockerClient;
-
-    @Value("${executor.agent.max-concurrent:1}")
-    private int maxConcurrent;
+    private final ContainerPool containerPool;
+    private final CompileCache compileCache;
+    private final TestDataCache testDataCache;
+    private final ObjectMapper objectMapper;
+    private final ExecutionSlots executionSlots;
+    private final JobService jobService;
 
     @Value("${execution.temp-dir:/tmp/codex}")
     private String tempBaseDir;
@@ -61,14 +84,13 @@ public class ExecuteController {
     @Value("${executor.agent.version:dev}")
     private String agentVersion;
 
-    /** Acquired per request. Initialized lazily once we know maxConcurrent. */
-    private volatile Semaphore concurrencyLimiter;
-
     /**
      * Tiny LRU-ish idempotency cache: submissionId -> (response, insertedAtEpochMs).
      * 5-minute TTL, capped at 256 entries to bound memory. Cheaply
      * synchronized — submission rate is low and entries are small.
      */
+    private static final String NDJSON = "application/x-ndjson";
+
     private static final long IDEMPOTENCY_TTL_MS = 5 * 60 * 1000L;
     private static final int MAX_CACHE_ENTRIES = 256;
     private final Map<UUID, CachedResult> idempotencyCache = new LinkedHashMap<>() {
@@ -89,20 +111,14 @@ public class ExecuteController {
             return ResponseEntity.ok(cached.response);
         }
 
-        Semaphore limiter = limiter();
-        boolean acquired;
-        try {
-            acquired = limiter.tryAcquire(60, TimeUnit.SECONDS);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body(Map.of("error", "interrupted while waiting for concurrency slot"));
+        ResponseEntity<?> unresolved = resolveTestData(request);
+        if (unresolved != null) {
+            return unresolved;
         }
 
-        if (!acquired) {
-            log.warn("Submission {} rejected: no concurrency slot available within 60s", submissionId);
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body(Map.of("error", "executor saturated, retry later"));
+        ResponseEntity<?> rejected = acquireSlot(submissionId);
+        if (rejected != null) {
+            return rejected;
         }
 
         try {
@@ -114,10 +130,63 @@ public class ExecuteController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", e.getMessage() == null ? "execution failed" : e.getMessage()));
         } finally {
-            limiter.release();
+            executionSlots.release();
         }
     }
 
+    /**
+     * Streaming variant of {@link #execute}. Admission (idempotency replay,
+     * concurrency slot) happens before the response is committed, so a
+     * saturated agent still answers 503. After that the body is NDJSON — one
+     * {@link ExecutionEvent} per line, flushed as it happens, ending with a
+     * {@code RESULT} event. A client that disconnects mid-run does not abort
+     * the execution; its result is still cached for an idempotent retry.
+     */
+    @PostMapping(value = "/execute/stream", produces = NDJSON)
+    public ResponseEntity<?> executeStream(@Valid @RequestBody ExecuteRequest request) {
+        UUID submissionId = request.getSubmissionId();
+
+        CachedResult cached = getCached(submissionId);
+        if (cached != null) {
+            log.info("Returning cached result for submission {} (idempotency replay, stream)", submissionId);
+            StreamingResponseBody replay = out -> new EventWriter(out, submissionId).result(cached.response);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(replay);
+        }
+
+        ResponseEntity<?> unresolved = resolveTestData(request);
+        if (unresolved != null) {
+            return unresolved;
+        }
+
+        ResponseEntity<?> rejected = acquireSlot(submissionId);
+        if (rejected != null) {
+            return rejected;
+        }
+
+        StreamingResponseBody body = out -> {
+            EventWriter writer = new EventWriter(out, submissionId);
+            try {
+                ExecuteResponse response = executionRunner.run(request, writer);
+                putCache(submissionId, response);
+                writer.result(response);
+            } catch (Exception e) {
+                // Headers are already sent: report the failure in-band as a RUNTIME_ERROR result.
+                log.error("Submission {} failed at controller layer (stream)", submissionId, e);
+                writer.result(ExecuteResponse.builder()
+                        .submissionId(submissionId)
+                        .status("RUNTIME_ERROR")
+                        .totalTestCases(request.getTestCases().size())
+                        .stdout("")
+                        .stderr(e.getMessage() == null ? "execution failed" : e.getMessage())
+                        .results(List.of())
+                        .build());
+            } finally {
+                executionSlots.release();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     @GetMapping("/healthz")
     public ResponseEntity<Map<String, Object>> healthz() {
         Map<String, Object> body = new HashMap<>();
@@ -145,10 +214,18 @@ public class ExecuteController {
         }
 
         // Concurrency state
-        Semaphore l = limiter();
         body.put("concurrency", Map.of(
-                "max", maxConcurrent,
-                "available", l.availablePermits()));
+                "max", executionSlots.max(),
+                "available", executionSlots.available()));
+
+        // Async job queue depth + wait
+        body.put("jobs", jobService.stats());
+
+        // Warm container pool occupancy + lease wait
+        body.put("pool", containerPool.stats());
+        body.put("compileCache", compileCache.stats());
+        body.put("testDataCache", testDataCache.stats());
+        body.put("processCleanup", dockerExecutor.cleanupStats());
 
         return ResponseEntity.ok(body);
     }
@@ -162,19 +239,37 @@ public class ExecuteController {
 
     // ───── helpers ──────────────────────────────────────────────────────
 
-    private Semaphore limiter() {
-        Semaphore l = concurrencyLimiter;
-        if (l == null) {
-            synchronized (this) {
-                if (concurrencyLimiter == null) {
-                    int max = Math.max(1, maxConcurrent);
-                    concurrencyLimiter = new Semaphore(max, true);
-                    log.info("Executor agent concurrency limiter initialized with {} permits", max);
-                }
-                l = concurrencyLimiter;
-            }
+    /**
+     * Inline every hash-referenced test case from the {@link TestDataCache}.
+     * Returns the 409 to send back (with the missing hashes, so the backend
+     * re-sends that data inline), or null once the request is complete.
+     */
+    private ResponseEntity<?> resolveTestData(ExecuteRequest request) {
+        List<String> missing = testDataCache.resolve(request);
+        if (missing.isEmpty()) {
+            return null;
         }
-        return l;
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "unknown test data", "missing", missing));
+    }
+
+    /** Waits up to 60s for a slot. Returns the 503 to send back, or null once a permit is held. */
+    private ResponseEntity<?> acquireSlot(UUID submissionId) {
+        boolean acquired;
+        try {
+            acquired = executionSlots.tryAcquire(60, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "interrupted while waiting for concurrency slot"));
+        }
+
+        if (!acquired) {
+            log.warn("Submission {} rejected: no concurrency slot available within 60s", submissionId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "executor saturated, retry later"));
+        }
+        return null;
     }
 
     private CachedResult getCached(UUID submissionId) {
@@ -197,4 +292,66 @@ public class ExecuteController {
 
     private record CachedResult(ExecuteResponse response, long insertedAtMs) {
     }
+
+    /**
+     * Serializes {@link ExecutionEvent}s as NDJSON lines. Synchronized because
+     * parallel tests report from several threads. Write failures (client went
+     * away) are logged once and further events are dropped.
+     */
+    private final class EventWriter implements ExecutionListener {
+        private final OutputStream out;
+        private final UUID submissionId;
+        private boolean broken;
+
+        private EventWriter(OutputStream out, UUID submissionId) {
+            this.out = out;
+            this.submissionId = submissionId;
+        }
+
+        @Override
+        public void onCompiled(boolean success, long compileTimeMs, boolean cached) {
+            write(ExecutionEvent.builder()
+                    .type(ExecutionEvent.COMPILED)
+                    .submissionId(submissionId)
+                    .compileSuccess(success)
+                    .compileTimeMs(compileTimeMs)
+                    .compileCached(cached)
+                    .build());
+        }
+
+        @Override
+        public void onTestFinished(int testIndex, int completed, int total, ExecuteResponse.TestResult result) {
+            write(ExecutionEvent.builder()
+                    .type(ExecutionEvent.TEST)
+                    .submissionId(submissionId)
+                    .testIndex(testIndex)
+                    .completed(completed)
+                    .total(total)
+                    .test(result)
+                    .build());
+        }
+
+        void result(ExecuteResponse response) {
+            write(ExecutionEvent.builder()
+                    .type(ExecutionEvent.RESULT)
+                    .submissionId(submissionId)
+                    .result(response)
+                    .build());
+        }
+
+        private synchronized void write(ExecutionEvent event) {
+            if (broken) {
+                return;
+            }
+            try {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                broken = true;
+                log.warn("Submission {}: stream client disconnected ({}), continuing without progress events",
+                        submissionId, e.getMessage());
+            }
+        }
+    }
 }
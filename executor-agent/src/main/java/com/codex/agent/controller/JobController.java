@@ -0,0 +1,72 @@
+package com.codex.agent.controller;
+
+import com.codex.agent.cache.TestDataCache;
+import com.codex.agent.dto.ExecuteRequest;
+import com.codex.agent.dto.JobStatus;
+import com.codex.agent.job.JobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Asynchronous counterpart of {@code POST /v1/execute}.
+ *
+ * <p>Exposed paths:
+ * <ul>
+ *   <li>{@code POST /v1/jobs} — enqueue a submission; 202 with the {@link JobStatus}
+ *   and a {@code Location} header, 503 + {@code Retry-After} when the queue is full, or 409
+ *   when test data referenced by hash is not in the {@link TestDataCache}</li>
+ *   <li>{@code GET  /v1/jobs/{id}} — current status; {@code result} is set once DONE.
+ *   404 for unknown or expired jobs</li>
+ * </ul>
+ * Neither call blocks on execution; see {@link JobService}.
+ */
+@RestController
+@RequestMapping("/v1/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+    private final TestDataCache testDataCache;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@Valid @RequestBody ExecuteRequest request) {
+        List<String> missing = testDataCache.resolve(request);
+        if (!missing.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "unknown test data", "missing", missing));
+        }
+        JobStatus status = jobService.submit(request);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", "job queue full, retry later"));
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/v1/jobs/" + status.getJobId()))
+                .body(status);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> get(@PathVariable UUID jobId) {
+        JobStatus status = jobService.get(jobId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "unknown or expired job " + jobId));
+        }
+        return ResponseEntity.ok(status);
+    }
+}
@@ -0,0 +1,21 @@
+package com.codex.agent.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Body of {@code POST /v1/blobs}: test data to store, keyed by the SHA-256
+ * (lowercase hex) of each value's UTF-8 bytes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobUploadRequest {
+
+    @NotNull
+    private Map<String, String> blobs;
+}
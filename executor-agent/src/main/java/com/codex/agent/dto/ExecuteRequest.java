@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -14,7 +15,7 @@ import java.util.List;
 import java.util.UUID;
 
 /**
- * Request payload for {@code POST /v1/execute}.
+ * Request payload for {@code POST /v1/execute} and {@code POST /v1/jobs}.
  * The Render-hosted backend constructs this from a queued submission and
  * sends it to the EC2-hosted agent.
  */
@@ -61,6 +62,13 @@ public class ExecuteRequest {
     @Valid
     private List<TestCase> testCases;
 
+    /**
+     * {@code POST /v1/jobs} only: where to POST the final {@link JobStatus}
+     * when the job finishes. Optional; pollers leave it null.
+     */
+    @Pattern(regexp = "https?://.+", message = "callbackUrl must be an http(s) URL")
+    private String callbackUrl;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -71,5 +79,17 @@ public class ExecuteRequest {
         private String stdin;
 
         private String expectedStdout;
+
+        /**
+         * SHA-256 (lowercase hex) of the stdin held in the agent's test data
+         * cache; when set, {@code stdin} is left null on the wire and filled in
+         * on arrival. See {@code TestDataCache}.
+         */
+        @Pattern(regexp = "[0-9a-f]{64}", message = "stdinHash must be a hex SHA-256")
+        private String stdinHash;
+
+        /** Same as {@link #stdinHash}, for {@code expectedStdout}. */
+        @Pattern(regexp = "[0-9a-f]{64}", message = "expectedStdoutHash must be a hex SHA-256")
+        private String expectedStdoutHash;
     }
 }
@@ -24,7 +24,8 @@ public class ExecuteResponse {
 
     /**
      * One of: ACCEPTED, WRONG_ANSWER, COMPILATION_ERROR, RUNTIME_ERROR,
-     * TIME_LIMIT_EXCEEDED, MEMORY_LIMIT_EXCEEDED.
+     * TIME_LIMIT_EXCEEDED, MEMORY_LIMIT_EXCEEDED, OUTPUT_LIMIT_EXCEEDED.
+     * The last one has no backend enum value; the backend stores it as RUNTIME_ERROR.
      */
     private String status;
 
@@ -32,6 +33,12 @@ public class ExecuteResponse {
     private long compileTimeMs;
     private long totalExecTimeMs;
 
+    /** Sum of per-test CPU time; null if no test could be measured. */
+    private Long totalCpuTimeMs;
+
+    /** Highest per-test peak RSS; null if no test could be measured. */
+    private Long peakMemoryKb;
+
     /** Number of test cases that passed (matches platform's submission_results.passedTestCases). */
     private int passedTestCases;
     private int totalTestCases;
@@ -49,12 +56,18 @@ public class ExecuteResponse {
     public static class TestResult {
         private String testCaseId;
 
-        /** PASSED, FAILED, TIME_LIMIT_EXCEEDED, RUNTIME_ERROR, MEMORY_LIMIT_EXCEEDED, SKIPPED. */
+        /** PASSED, FAILED, TIME_LIMIT_EXCEEDED, RUNTIME_ERROR, MEMORY_LIMIT_EXCEEDED, OUTPUT_LIMIT_EXCEEDED, SKIPPED. */
         private String status;
 
         private String stdout;
         private String stderr;
         private long execTimeMs;
         private int exitCode;
+
+        /** user+sys CPU time of the test's process tree. The TLE verdict is based on this. */
+        private Long cpuTimeMs;
+
+        /** Peak RSS of the test's process tree. */
+        private Long peakMemoryKb;
     }
 }
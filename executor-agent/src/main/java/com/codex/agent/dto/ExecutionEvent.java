@@ -0,0 +1,53 @@
+package com.codex.agent.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One line of the NDJSON stream returned by {@code POST /v1/execute/stream}.
+ *
+ * <p>Event types, in order:
+ * <ul>
+ *   <li>{@code COMPILED} — compile step finished ({@code compileSuccess},
+ *   {@code compileTimeMs}, {@code compileCached}). Sent for interpreted
+ *   languages too, with {@code compileTimeMs = 0}.</li>
+ *   <li>{@code TEST} — one test case finished ({@code testIndex}, {@code completed},
+ *   {@code total}, {@code test}). With parallel tests these may arrive out of
+ *   index order; SKIPPED tests are not announced.</li>
+ *   <li>{@code RESULT} — always last; {@code result} is exactly what
+ *   {@code POST /v1/execute} would have returned.</li>
+ * </ul>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExecutionEvent {
+
+    public static final String COMPILED = "COMPILED";
+    public static final String TEST = "TEST";
+    public static final String RESULT = "RESULT";
+
+    private String type;
+    private UUID submissionId;
+
+    // COMPILED
+    private Boolean compileSuccess;
+    private Long compileTimeMs;
+    private Boolean compileCached;
+
+    // TEST
+    private Integer testIndex;
+    private Integer completed;
+    private Integer total;
+    private ExecuteResponse.TestResult test;
+
+    // RESULT
+    private ExecuteResponse result;
+}
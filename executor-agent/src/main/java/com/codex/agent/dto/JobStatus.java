@@ -0,0 +1,46 @@
+package com.codex.agent.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Body of {@code POST /v1/jobs} (202) and {@code GET /v1/jobs/{id}}, and the
+ * payload POSTed to a job's {@code callbackUrl} once it finishes.
+ *
+ * <p>States: {@code QUEUED} → {@code RUNNING} → {@code DONE} (with
+ * {@code result}) or {@code FAILED} (with {@code error}). {@code result} is
+ * exactly what {@code POST /v1/execute} would have returned.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatus {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private UUID jobId;
+    private UUID submissionId;
+    private String state;
+
+    /** 1-based position in the queue while QUEUED. */
+    private Integer queuePosition;
+
+    /** Time spent queued; while QUEUED, the time so far. */
+    private Long queueWaitMs;
+
+    /** Wall time of the run itself, once finished. */
+    private Long runTimeMs;
+
+    private ExecuteResponse result;
+    private String error;
+}
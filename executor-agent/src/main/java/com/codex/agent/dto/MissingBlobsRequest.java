@@ -0,0 +1,23 @@
+package com.codex.agent.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /v1/blobs/missing}: the test data hashes a request is
+ * about to reference. The answer lists the ones the agent does not hold.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MissingBlobsRequest {
+
+    @NotNull
+    @Size(max = 10_000)
+    private List<String> hashes;
+}
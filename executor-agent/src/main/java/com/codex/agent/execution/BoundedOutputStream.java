@@ -0,0 +1,79 @@
+package com.codex.agent.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the first {@code limit} bytes written and only counts the rest, so a
+ * program printing in a loop cannot grow the agent's heap. Used in place of an
+ * unbounded {@link ByteArrayOutputStream} for exec stdout/stderr.
+ *
+ * <p>The last {@value #TAIL_BYTES} bytes are always kept as well, so a trailer
+ * written at the very end (see {@code DockerExecutor}'s rusage report) survives
+ * even when the head was truncated.
+ */
+public class BoundedOutputStream extends OutputStream {
+
+    static final int TAIL_BYTES = 256;
+
+    private final ByteArrayOutputStream kept;
+    private final byte[] tail = new byte[TAIL_BYTES];
+    private long total;
+    private final int limit;
+    private long dropped;
+
+    public BoundedOutputStream(int limit) {
+        this.limit = Math.max(0, limit);
+        this.kept = new ByteArrayOutputStream(Math.min(this.limit, 1024));
+    }
+
+    @Override
+    public void write(int b) {
+        tail[(int) (total++ % TAIL_BYTES)] = (byte) b;
+        if (kept.size() < limit) {
+            kept.write(b);
+        } else {
+            dropped++;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        for (int i = Math.max(0, len - TAIL_BYTES); i < len; i++) {
+            tail[(int) ((total + i) % TAIL_BYTES)] = b[off + i];
+        }
+        total += len;
+        int room = Math.min(len, limit - kept.size());
+        if (room > 0) {
+            kept.write(b, off, room);
+        }
+        dropped += len - Math.max(0, room);
+    }
+
+    public long getDroppedBytes() {
+        return dropped;
+    }
+
+    /** The last (up to) {@value #TAIL_BYTES} bytes written, as UTF-8. */
+    public String tail() {
+        int n = (int) Math.min(total, TAIL_BYTES);
+        byte[] out = new byte[n];
+        for (int i = 0; i < n; i++) {
+            out[i] = tail[(int) ((total - n + i) % TAIL_BYTES)];
+        }
+        return new String(out, StandardCharsets.UTF_8);
+    }
+
+    /** The kept head, raw. */
+    public byte[] toByteArray() {
+        return kept.toByteArray();
+    }
+
+    /** Captured output as UTF-8, with a marker if anything was cut off. */
+    @Override
+    public String toString() {
+        String text = kept.toString(StandardCharsets.UTF_8);
+        return dropped == 0 ? text : text + "\n... [" + dropped + " more bytes truncated]";
+    }
+}
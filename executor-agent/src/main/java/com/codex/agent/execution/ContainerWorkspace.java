@@ -0,0 +1,39 @@
+package com.codex.agent.execution;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tmpfs-mode {@link Workspace}: {@code /workspace} is RAM inside the
+ * container, so files go in and out as in-memory tar archives streamed
+ * through {@code docker exec} (see {@link DockerExecutor#copyArchiveIn}).
+ */
+final class ContainerWorkspace implements Workspace {
+
+    private final DockerExecutor dockerExecutor;
+    private final String containerId;
+
+    ContainerWorkspace(DockerExecutor dockerExecutor, String containerId) {
+        this.dockerExecutor = dockerExecutor;
+        this.containerId = containerId;
+    }
+
+    @Override
+    public void write(String fileName, String content) throws IOException {
+        dockerExecutor.copyArchiveIn(containerId,
+                WorkspaceArchive.pack(Map.of(fileName, content.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Override
+    public void importFrom(Path from, Set<String> excludedTopLevelNames) throws IOException {
+        dockerExecutor.copyArchiveIn(containerId, WorkspaceArchive.pack(from, excludedTopLevelNames));
+    }
+
+    @Override
+    public void exportTo(Path to, Set<String> excludedTopLevelNames) throws IOException {
+        WorkspaceArchive.unpack(dockerExecutor.copyArchiveOut(containerId), to, excludedTopLevelNames);
+    }
+}
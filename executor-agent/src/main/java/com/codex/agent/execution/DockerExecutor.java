@@ -1,14 +1,17 @@
 package com.codex.agent.execution;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.ExecStartCmd;
 import com.github.dockerjava.api.command.PullImageResultCallback;
 import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.Capability;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Volume;
-import com.github.dockerjava.core.command.ExecStartResultCallback;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,13 +19,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -31,16 +35,22 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Verbatim port of the platform's {@code DockerExecutor} into the agent's
- * package namespace. Behavior is identical: write source to host temp dir,
- * spin up one container per submission, compile once, run all test cases
- * via {@code docker exec}, then clean up.
+ * Port of the platform's {@code DockerExecutor} into the agent's package
+ * namespace: spin up one container per submission, write the source into
+ * its {@code /workspace}, compile once, run all test cases via
+ * {@code docker exec}, then clean up.
  *
- * <p>The agent owns the host filesystem path it writes to, so the bind
- * mount works because both the agent process and the Docker daemon are on
- * the same machine (EC2). This is the entire reason the agent exists.
+ * <p>{@code /workspace} is either a tmpfs inside the container
+ * ({@code execution.workspace.mode=tmpfs}, the default: files are copied in
+ * and out as in-memory tar archives, nothing touches the host disk and
+ * nothing is left behind if the agent dies) or, in the legacy {@code bind}
+ * mode, a host directory under {@code execution.temp-dir}. Bind mode works
+ * because the agent process and the Docker daemon are on the same machine.
  */
 @Service
 @RequiredArgsConstructor
@@ -58,6 +68,170 @@ public class DockerExecutor {
     @Value("${execution.default-memory-limit-mb:256}")
     private int defaultMemoryLimit;
 
+    /** Tests of one submission that may run at once; the CPU quota scales with it. */
+    @Value("${executor.agent.test-parallelism:1}")
+    private int testParallelism;
+
+    /** Bytes of stdout / stderr kept per exec; the rest is counted and dropped. */
+    @Value("${execution.output.capture-bytes:65536}")
+    private int captureBytes;
+
+    /**
+     * Tests are judged on CPU time; wall clock only backstops programs that
+     * block (sleep, read on a closed pipe). Hard wall limit = time limit x this.
+     */
+    @Value("${execution.wall-time-factor:2}")
+    private int wallTimeFactor;
+
+    /** {@code tmpfs} (RAM inside the container) or {@code bind} (host directory under temp-dir). */
+    @Value("${execution.workspace.mode:tmpfs}")
+    private String workspaceMode;
+
+    /** Size cap of a tmpfs workspace; its pages count against the container's memory limit. */
+    @Value("${execution.workspace.tmpfs-size-mb:128}")
+    private int workspaceTmpfsSizeMb;
+
+    /** Largest workspace snapshot {@link #copyArchiveOut} will buffer. */
+    @Value("${execution.workspace.archive-max-bytes:67108864}")
+    private int archiveMaxBytes;
+
+    /** Marker of the rusage trailer {@link #RUSAGE_SUPERVISOR} writes to stderr. */
+    private static final String RUSAGE_MARKER = "__CODEX_RUSAGE__";
+
+    private static final Pattern RUSAGE_TRAILER = Pattern.compile(
+            "\\n?" + RUSAGE_MARKER + " (-?\\d+) (-?\\d+) (-?\\d+)(?: (\\d+))?(?: (-?\\d+))?\\n?$");
+
+    /** Marker of the line announcing the test's process group, written right after the fork. */
+    private static final String PGID_MARKER = "__CODEX_PGID__";
+
+    private static final Pattern PGID_LINE = Pattern.compile(PGID_MARKER + " (\\d+)\\n");
+
+    /**
+     * Per-test resource accounting. Runs the test command as a child of a tiny
+     * perl supervisor (perl-base is part of every Debian/Ubuntu executor image)
+     * which waits for it and reports {@code getrusage(RUSAGE_CHILDREN)} — user+sys
+     * CPU in microseconds and peak RSS in KB of exactly this test's process tree —
+     * as the last stderr line, then exits with the child's status (128+signal
+     * when killed, so OOM still shows up as 137).
+     *
+     * <p>Container-wide cgroup counters ({@code cpu.stat}, {@code memory.peak})
+     * are not used: pooled containers are reused across submissions, the compile
+     * runs in the same cgroup, and parallel tests share it, so neither counter
+     * can be attributed to a single test.
+     *
+     * <p>getrusage is called via {@code syscall} (no BSD::Resource in perl-base);
+     * on architectures other than x86_64/aarch64 CPU falls back to perl's
+     * {@code times} and memory is reported as -1.
+     *
+     * <p>The test input arrives on the exec's attached stdin. docker-java never
+     * half-closes that stream, so the program would wait for EOF forever: the
+     * supervisor copies exactly {@code $ARGV[1]} bytes into a pipe to the child
+     * and closes it. With no input the child keeps the exec's unattached
+     * stdin, which reads as empty.
+     *
+     * <p>The child leads its own process group, announced on stderr before
+     * anything else happens, so a runaway test can be killed as a whole
+     * ({@link #reap}). When the child exits, survivors it left behind are
+     * counted and killed before the trailer is written: members of its group,
+     * or with {@code $ARGV[2]} set (the test has the container to itself)
+     * every process but PID 1 — which also catches anything that escaped the
+     * group with {@code setsid}. The count is the trailer's fourth field.
+     * Zombies are ignored: the keep-alive PID 1 never reaps orphans.
+     *
+     * <p>The fifth field is the child's wall time in microseconds
+     * ({@code clock_gettime(CLOCK_MONOTONIC)} via {@code syscall}, -1 where
+     * unavailable); everything else the agent measured around it is exec
+     * overhead.
+     */
+    private static final String RUSAGE_SUPERVISOR = String.join("\n",
+            "use Config;",
+            "my ($arch) = $Config{archname} =~ /^(x86_64|aarch64)/;",
+            "my %ct = (x86_64 => 228, aarch64 => 113);",
+            "sub now { my $t = \"\\0\" x 16; return -1 if !$arch || syscall($ct{$arch}, 1, $t) != 0;"
+                    + " my ($s, $ns) = unpack('q2', $t); return $s * 1000000 + int($ns / 1000); }",
+            "my $t0 = now();",
+            "my $len = $ARGV[1] || 0;",
+            "my ($in, $feed);",
+            "pipe($in, $feed) or die \"pipe: $!\" if $len > 0;",
+            "my $pid = fork;",
+            "if (!defined $pid) { die \"fork: $!\" if $len > 0; exec '/bin/sh', '-c', $ARGV[0]; }",
+            "if ($pid == 0) {",
+            "  setpgrp(0, 0);",
+            "  if ($len > 0) { close $feed; open(STDIN, '<&', $in) or exit 127; close $in; }",
+            "  exec '/bin/sh', '-c', $ARGV[0]; exit 127;",
+            "}",
+            "print STDERR \"" + PGID_MARKER + " $pid\\n\";",
+            "sub stray {",
+            "  my $n = 0;",
+            "  opendir(my $dh, '/proc') or return 0;",
+            "  for my $p (grep { /^\\d+$/ && $_ != 1 && $_ != $$ } readdir $dh) {",
+            "    open(my $f, '<', \"/proc/$p/stat\") or next;",
+            "    my $s = <$f>; close $f; next if !defined $s;",
+            "    my @f = split ' ', substr($s, rindex($s, ')') + 2);",
+            "    $n++ if $f[0] ne 'Z' && ($ARGV[2] || $f[2] == $_[0]);",
+            "  }",
+            "  return $n;",
+            "}",
+            "if ($len > 0) {",
+            "  close $in; $SIG{PIPE} = 'IGNORE';",
+            "  FEED: while ($len > 0) {",
+            "    my $n = sysread(STDIN, my $buf, $len < 65536 ? $len : 65536);",
+            "    last if !$n;",
+            "    $len -= $n;",
+            "    for (my $off = 0; $off < $n;) { my $w = syswrite($feed, $buf, $n - $off, $off); last FEED if !$w; $off += $w; }",
+            "  }",
+            "  close $feed;",
+            "}",
+            "waitpid($pid, 0);",
+            "my $st = $?;",
+            "my $t1 = now();",
+            "my $wall = $t0 >= 0 && $t1 >= 0 ? $t1 - $t0 : -1;",
+            "my ($cu, $cs) = (times)[2, 3];",
+            "my ($cpu, $rss) = (int(($cu + $cs) * 1e6), -1);",
+            "my %nr = (x86_64 => 98, aarch64 => 165);",
+            "my $buf = \"\\0\" x 144;",
+            "if ($arch && syscall($nr{$arch}, -1, $buf) == 0) {",
+            "  my @r = unpack('q5', $buf);",
+            "  ($cpu, $rss) = ($r[0] * 1000000 + $r[1] + $r[2] * 1000000 + $r[3], $r[4]);",
+            "}",
+            "my $code = ($st & 127) ? 128 + ($st & 127) : $st >> 8;",
+            "my $stray = stray($pid);",
+            "kill 'KILL', $ARGV[2] ? -1 : -$pid if $stray;",
+            "print STDERR \"\\n" + RUSAGE_MARKER + " $code $cpu $rss $stray $wall\\n\";",
+            "exit $code;");
+
+    /**
+     * Falls back to a plain, unmeasured run on images without perl; there
+     * {@code head -c} bounds the attached stdin instead of the supervisor.
+     */
+    private static final String SUPERVISED_LAUNCHER =
+            "if command -v perl >/dev/null 2>&1; then exec perl -e \"$0\" \"$1\" \"$2\" \"$3\"; "
+                    + "elif [ \"$2\" -gt 0 ]; then head -c \"$2\" | /bin/sh -c \"$1\"; "
+                    + "else exec /bin/sh -c \"$1\"; fi";
+
+    /**
+     * Kills an abandoned test and waits until it is really gone. {@code $0} is
+     * the test's process group (0 = unknown); with {@code $1 = all} every
+     * process but PID 1 is killed instead. /proc is polled for up to ~1s,
+     * ignoring zombies; exit 1 means something survived.
+     */
+    private static final String REAP_SCRIPT =
+            "g=$0; all=$1; "
+                    + "zap() { if [ \"$all\" = all ]; then kill -9 -1; else kill -9 -\"$g\"; fi 2>/dev/null; }; "
+                    + "i=0; while :; do zap; n=0; "
+                    + "for d in /proc/[0-9]*; do p=${d#/proc/}; "
+                    + "if [ \"$p\" = 1 ] || [ \"$p\" = $$ ]; then continue; fi; "
+                    + "read -r s < \"$d/stat\" 2>/dev/null || continue; set -- ${s##*) }; "
+                    + "[ \"$1\" = Z ] && continue; "
+                    + "if [ \"$all\" = all ] || [ \"$3\" = \"$g\" ]; then n=$((n+1)); fi; done; "
+                    + "[ $n -eq 0 ] && exit 0; i=$((i+1)); [ $i -ge 50 ] && exit 1; sleep 0.02; done";
+
+    // Metrics
+    private final AtomicLong strayCleanups = new AtomicLong(0);
+    private final AtomicLong strayProcesses = new AtomicLong(0);
+    private final AtomicLong runawayKills = new AtomicLong(0);
+    private final AtomicLong containerRestarts = new AtomicLong(0);
+
     /** Loaded once at startup from classpath:seccomp-judge.json */
     private String seccompJson;
 
@@ -69,14 +243,24 @@ public class DockerExecutor {
         log.info("Seccomp profile loaded ({} bytes)", seccompJson.length());
     }
 
-    /** Create a temp directory and write the source code file. */
-    public Path prepareTempDirectory(String sourceCode, String fileName) throws IOException {
-        log.debug("Preparing temp directory for file: {}", fileName);
-        Path tempDir = createTempDirectory();
-        Path sourceFile = tempDir.resolve(fileName);
-        Files.writeString(sourceFile, sourceCode);
-        log.debug("Temp directory prepared: {}", tempDir);
-        return tempDir;
+    public boolean isTmpfsWorkspace() {
+        return "tmpfs".equalsIgnoreCase(workspaceMode);
+    }
+
+    /**
+     * Host directory to bind-mount at {@code /workspace} of a new container,
+     * or null in tmpfs mode (the container gets a RAM-backed one instead).
+     */
+    public Path createWorkspaceDirectory(String prefix) throws IOException {
+        return isTmpfsWorkspace() ? null : createTempDirectory(prefix);
+    }
+
+    /**
+     * The {@code /workspace} of a container created with {@code workDir}
+     * (null = tmpfs, see {@link #createWorkspaceDirectory}).
+     */
+    public Workspace workspace(String containerId, Path workDir) {
+        return workDir != null ? new HostWorkspace(workDir) : new ContainerWorkspace(this, containerId);
     }
 
     /**
@@ -102,42 +286,33 @@ public class DockerExecutor {
     }
 
     /**
-     * Create and start a container for the given image + workspace.
+     * Create and start a container for the given image + workspace
+     * ({@code workDir} null = tmpfs {@code /workspace}).
      * Wrapped in a 60-second hard timeout so a frozen Docker daemon cannot
      * block the worker thread indefinitely.
      */
     public String createAndStartContainer(String dockerImage, Path workDir, int memoryLimitMb) {
+        return createAndStartContainer(dockerImage, workDir, memoryLimitMb, List.of("sleep", "120"), Map.of());
+    }
+
+    /**
+     * Same hardened container as {@link #createAndStartContainer(String, Path, int)},
+     * but with a caller-supplied keep-alive command and labels. Used by the
+     * warm container pool, whose containers outlive a single submission.
+     */
+    public String createAndStartContainer(String dockerImage, Path workDir, int memoryLimitMb,
+                                          List<String> keepAliveCmd, Map<String, String> labels) {
         log.debug("Creating container for image: {} with workDir: {}", dockerImage, workDir);
 
         ensureImageExists(dockerImage);
 
         ExecutorService executor = Executors.newSingleThreadExecutor();
         Future<String> future = executor.submit(() -> {
-            HostConfig hostConfig = HostConfig.newHostConfig()
-                    .withBinds(new Bind(workDir.toString(), new Volume("/workspace")))
-                    // ── Network ────────────────────────────────────────────
-                    .withNetworkMode("none")
-                    // ── Resource limits ────────────────────────────────────
-                    .withMemory((long) memoryLimitMb * 1024 * 1024)
-                    .withMemorySwap(-1L)
-                    .withCpuQuota(50000L)        // 50% of one core
-                    .withPidsLimit(50L)          // prevent fork bombs
-                    // ── Filesystem ─────────────────────────────────────────
-                    .withReadonlyRootfs(true)
-                    .withTmpFs(Map.of("/tmp", "rw,noexec,nosuid,size=64m"))
-                    // ── Capabilities ───────────────────────────────────────
-                    .withCapDrop(Capability.ALL)
-                    // ── Syscall filtering ──────────────────────────────────
-                    .withSecurityOpts(List.of(
-                            "no-new-privileges",
-                            "seccomp=" + seccompJson
-                    ))
-                    .withAutoRemove(false);
-
             CreateContainerResponse container = dockerClient.createContainerCmd(dockerImage)
-                    .withHostConfig(hostConfig)
+                    .withHostConfig(buildHostConfig(workDir, memoryLimitMb))
                     .withWorkingDir("/workspace")
-                    .withCmd("sleep", "120")
+                    .withLabels(labels)
+                    .withCmd(keepAliveCmd)
                     .exec();
 
             String containerId = container.getId();
@@ -163,6 +338,38 @@ public class DockerExecutor {
         }
     }
 
+    /** The sandbox every judge container runs in, pooled or not. */
+    private HostConfig buildHostConfig(Path workDir, int memoryLimitMb) {
+        Map<String, String> tmpfs = new LinkedHashMap<>();
+        tmpfs.put("/tmp", "rw,noexec,nosuid,size=64m");
+        HostConfig hostConfig = HostConfig.newHostConfig();
+        if (workDir != null) {
+            hostConfig.withBinds(new Bind(workDir.toString(), new Volume("/workspace")));
+        } else {
+            // exec: compiled binaries run from here. Any user may write (images differ in USER).
+            tmpfs.put("/workspace", "rw,exec,nosuid,nodev,size=" + workspaceTmpfsSizeMb + "m,mode=1777");
+        }
+        return hostConfig
+                // ── Network ────────────────────────────────────────────
+                .withNetworkMode("none")
+                // ── Resource limits ────────────────────────────────────
+                .withMemory((long) memoryLimitMb * 1024 * 1024)
+                .withMemorySwap(-1L)
+                .withCpuQuota(50000L * Math.max(1, testParallelism))  // 50% of one core per parallel test
+                .withPidsLimit(50L)          // prevent fork bombs
+                // ── Filesystem ─────────────────────────────────────────
+                .withReadonlyRootfs(true)
+                .withTmpFs(tmpfs)
+                // ── Capabilities ───────────────────────────────────────
+                .withCapDrop(Capability.ALL)
+                // ── Syscall filtering ──────────────────────────────────
+                .withSecurityOpts(List.of(
+                        "no-new-privileges",
+                        "seccomp=" + seccompJson
+                ))
+                .withAutoRemove(false);
+    }
+
     /**
      * Compile source code inside the container.
      * @return null on success or no-compile-needed; an ExecutionResult describing the failure otherwise.
@@ -191,63 +398,267 @@ public class DockerExecutor {
     }
 
     /**
-     * Run a single test case inside the container.
-     * Writes input to /workspace/input.txt on the host (which is bind-mounted)
-     * and pipes it into the program via shell redirect.
+     * Run a single test case inside the container. The input is streamed over
+     * the exec's attached stdin — nothing is written to the workspace, so
+     * concurrently running tests of one submission never share an input file.
      */
     public ExecutionResult runTestCase(String containerId, String executeCommand,
-                                       String input, int timeLimitMs, Path workDir) throws Exception {
+                                       String input, int timeLimitMs) throws Exception {
+        return runTestCase(containerId, executeCommand, input, timeLimitMs, null, true);
+    }
 
-        Path inputFile = workDir.resolve("input.txt");
-        Files.writeString(inputFile, input == null ? "" : input);
+    /**
+     * Same as above, streaming stdout into {@code comparator} as it arrives.
+     * If the comparator reports the output limit exceeded, the exec is
+     * detached immediately and the result says so in stderr.
+     *
+     * <p>{@code exclusive}: no other test runs in the container meanwhile, so
+     * any process left over afterwards is this test's and may be killed
+     * (see {@link #RUSAGE_SUPERVISOR}). A test the agent stopped waiting for
+     * is killed before this returns; if it cannot be, the container is
+     * restarted. Either way the next test starts in a clean container.
+     */
+    public ExecutionResult runTestCase(String containerId, String executeCommand, String input,
+                                       int timeLimitMs, OutputComparator comparator,
+                                       boolean exclusive) throws Exception {
 
-        String inputRedirect = (input != null && !input.isEmpty()) ? " < /workspace/input.txt" : "";
-        String fullCommand = executeCommand + inputRedirect;
+        byte[] stdin = input == null ? new byte[0] : input.getBytes(StandardCharsets.UTF_8);
 
         long startTime = System.currentTimeMillis();
-        ExecutionResult result = executeCommandInContainer(containerId, fullCommand, timeLimitMs);
+        ExecutionResult result = executeCommandInContainer(containerId,
+                new String[]{"/bin/sh", "-c", SUPERVISED_LAUNCHER, RUSAGE_SUPERVISOR, executeCommand,
+                        Integer.toString(stdin.length), exclusive ? "1" : "0"},
+                stdin, timeLimitMs * Math.max(1, wallTimeFactor), comparator);
         long executionTime = System.currentTimeMillis() - startTime;
 
+        Integer pgid = applySupervisorReport(result);
+        if (result.isAbandoned()) {
+            reap(containerId, pgid, exclusive);
+        }
         result.setExecutionTimeMs(executionTime);
         result.setSuccess(result.getExitCode() == 0);
 
         return result;
     }
 
+    /**
+     * Moves the supervisor's process-group line and trailer out of stderr; the
+     * trailer goes into cpuTimeMs / peakMemoryKb. The trailer's exit code is
+     * authoritative when present (no inspect race).
+     *
+     * @return the test's process group, or null if it was never announced
+     */
+    private Integer applySupervisorReport(ExecutionResult result) {
+        String stderr = result.getStderr();
+        if (stderr == null) {
+            return null;
+        }
+        Integer pgid = null;
+        Matcher pg = PGID_LINE.matcher(stderr);
+        if (pg.find()) {
+            pgid = Integer.valueOf(pg.group(1));
+            stderr = stderr.substring(0, pg.start()) + stderr.substring(pg.end());
+            result.setStderr(stderr);
+        }
+        Matcher m = RUSAGE_TRAILER.matcher(stderr);
+        if (!m.find()) {
+            return pgid;
+        }
+        result.setStderr(stderr.substring(0, m.start()));
+        result.setExitCode(Integer.parseInt(m.group(1)));
+        long cpuMicros = Long.parseLong(m.group(2));
+        long rssKb = Long.parseLong(m.group(3));
+        result.setCpuTimeMs(cpuMicros >= 0 ? cpuMicros / 1000 : null);
+        result.setPeakMemoryKb(rssKb >= 0 ? rssKb : null);
+        if (m.group(4) != null && !"0".equals(m.group(4))) {
+            strayCleanups.incrementAndGet();
+            strayProcesses.addAndGet(Long.parseLong(m.group(4)));
+        }
+        return pgid;
+    }
+
+    /**
+     * Kill a test the agent stopped waiting for (its exec keeps running in
+     * the container otherwise, eating the CPU quota of the tests after it).
+     * Kills its process group, or everything but PID 1 when the test had the
+     * container to itself. If that fails — or the group is unknown and other
+     * tests share the container — the container is restarted.
+     */
+    private void reap(String containerId, Integer pgid, boolean exclusive) {
+        runawayKills.incrementAndGet();
+        if (exclusive || pgid != null) {
+            try {
+                ExecutionResult reaped = executeCommandInContainer(containerId,
+                        new String[]{"/bin/sh", "-c", REAP_SCRIPT, pgid == null ? "0" : pgid.toString(),
+                                exclusive ? "all" : "group"},
+                        null, 10_000, null);
+                if (reaped.getExitCode() != null && reaped.getExitCode() == 0) {
+                    log.debug("Killed abandoned test (pgid {}) in container {}", pgid, containerId);
+                    return;
+                }
+                log.warn("Abandoned test (pgid {}) in container {} survived kill -9 (exit {})",
+                        pgid, containerId, reaped.getExitCode());
+            } catch (Exception e) {
+                log.warn("Failed to kill abandoned test in container {}: {}", containerId, e.getMessage());
+            }
+        }
+        restartContainer(containerId);
+    }
+
+    /**
+     * Last resort for a container that could not be cleaned: restart it.
+     * A tmpfs {@code /workspace} does not survive a restart, so it is
+     * snapshotted first and restored afterwards (compiled binaries live there).
+     */
+    private void restartContainer(String containerId) {
+        containerRestarts.incrementAndGet();
+        try {
+            var tmpfs = dockerClient.inspectContainerCmd(containerId).exec().getHostConfig().getTmpFs();
+            byte[] workspace = tmpfs != null && tmpfs.containsKey("/workspace") ? copyArchiveOut(containerId) : null;
+            dockerClient.restartContainerCmd(containerId).withTimeout(0).exec();
+            if (workspace != null) {
+                copyArchiveIn(containerId, workspace);
+            }
+            log.warn("Restarted container {} to get rid of a runaway test", containerId);
+        } catch (Exception e) {
+            log.error("Failed to restart container {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    /** Counters of cleanup after tests, for {@code /v1/healthz}. */
+    public Map<String, Object> cleanupStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strayCleanups", strayCleanups.get());
+        stats.put("strayProcesses", strayProcesses.get());
+        stats.put("runawayKills", runawayKills.get());
+        stats.put("containerRestarts", containerRestarts.get());
+        return stats;
+    }
+
+    /**
+     * Extract a tar into the container's {@code /workspace}.
+     *
+     * <p>Not {@code copyArchiveToContainerCmd}: the daemon refuses archive
+     * uploads into a read-only-rootfs container unless the target is a
+     * volume, a {@code --tmpfs} mount is not one, and older daemons would
+     * extract into the rootfs underneath the tmpfs anyway. So the archive is
+     * streamed over an exec's attached stdin instead, with {@code head -c}
+     * bounding it because docker-java never half-closes that stream.
+     */
+    void copyArchiveIn(String containerId, byte[] tar) throws IOException {
+        ExecutionResult result = execQuietly(containerId, new String[]{"/bin/sh", "-c",
+                "head -c \"$0\" | tar -x -f - -C /workspace --no-same-owner", Integer.toString(tar.length)},
+                tar, new BoundedOutputStream(captureBytes));
+        if (result.getExitCode() == null || result.getExitCode() != 0) {
+            throw new IOException("copy into /workspace of " + containerId + " failed (exit "
+                    + result.getExitCode() + "): " + result.getStderr().trim());
+        }
+    }
+
+    /** The container's whole {@code /workspace} as a tar. */
+    byte[] copyArchiveOut(String containerId) throws IOException {
+        BoundedOutputStream archive = new BoundedOutputStream(archiveMaxBytes);
+        ExecutionResult result = execQuietly(containerId,
+                new String[]{"tar", "-c", "-f", "-", "-C", "/workspace", "."}, null, archive);
+        if (result.getExitCode() == null || result.getExitCode() != 0) {
+            throw new IOException("copy out of /workspace of " + containerId + " failed (exit "
+                    + result.getExitCode() + "): " + result.getStderr().trim());
+        }
+        if (archive.getDroppedBytes() > 0) {
+            throw new IOException("/workspace of " + containerId + " exceeds " + archiveMaxBytes + " bytes");
+        }
+        return archive.toByteArray();
+    }
+
+    private ExecutionResult execQuietly(String containerId, String[] cmd, byte[] stdin,
+                                        BoundedOutputStream stdout) throws IOException {
+        try {
+            return executeCommandInContainer(containerId, cmd, stdin, 30_000, null, stdout);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
     /** Execute a command inside a running container. */
     private ExecutionResult executeCommandInContainer(String containerId, String command, int timeLimitMs) throws Exception {
-        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        return executeCommandInContainer(containerId, new String[]{"/bin/sh", "-c", command}, null, timeLimitMs, null);
+    }
+
+    private ExecutionResult executeCommandInContainer(String containerId, String[] cmd, byte[] stdin,
+                                                      int timeLimitMs, OutputComparator comparator) throws Exception {
+        return executeCommandInContainer(containerId, cmd, stdin, timeLimitMs, comparator,
+                new BoundedOutputStream(captureBytes));
+    }
+
+    /**
+     * Execute a command inside a running container. stdout/stderr are captured
+     * up to {@code execution.output.capture-bytes}; stdout is also fed to
+     * {@code comparator} (nullable) chunk by chunk. A non-empty {@code stdin}
+     * is written to the exec's attached stdin; the stream is never closed,
+     * so the command must stop reading after {@code stdin.length} bytes.
+     */
+    private ExecutionResult executeCommandInContainer(String containerId, String[] cmd, byte[] stdin,
+                                                      int timeLimitMs, OutputComparator comparator,
+                                                      BoundedOutputStream stdout) throws Exception {
+        BoundedOutputStream stderr = new BoundedOutputStream(captureBytes);
+        boolean attachStdin = stdin != null && stdin.length > 0;
 
         long startTime = System.currentTimeMillis();
 
         String execId = dockerClient.execCreateCmd(containerId)
-                .withCmd("/bin/sh", "-c", command)
+                .withCmd(cmd)
+                .withAttachStdin(attachStdin)
                 .withAttachStdout(true)
                 .withAttachStderr(true)
                 .exec()
                 .getId();
 
+        ExecOutputCallback callback = new ExecOutputCallback(stdout, stderr, comparator);
         boolean completed;
         try {
-            completed = dockerClient.execStartCmd(execId)
-                    .exec(new ExecStartResultCallback(stdout, stderr))
+            ExecStartCmd start = dockerClient.execStartCmd(execId);
+            if (attachStdin) {
+                start.withStdIn(new ByteArrayInputStream(stdin));
+            }
+            completed = start.exec(callback)
                     .awaitCompletion(timeLimitMs, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            log.error("Command execution interrupted", e);
+            // Also how a parallel test is cancelled after an earlier test failed.
+            log.debug("Command execution interrupted for exec {}", execId);
+            Thread.currentThread().interrupt();
+            callback.close();
             throw new RuntimeException("Execution interrupted", e);
         }
 
         long executionTime = System.currentTimeMillis() - startTime;
 
+        if (callback.outputLimitExceeded) {
+            log.warn("Output limit exceeded after {} bytes for exec {}, detached", comparator.getRawBytes(), execId);
+            return new ExecutionResult(
+                    stdout.toString(),
+                    withNotice(stderr, "Output limit exceeded (" + comparator.getRawBytes() + " bytes written)"),
+                    -1,
+                    executionTime,
+                    false,
+                    null,
+                    null,
+                    true);
+        }
+
         if (!completed) {
             log.warn("Command timed out after {}ms for exec {}", timeLimitMs, execId);
+            callback.close();   // stop buffering a process that is about to be killed
             return new ExecutionResult(
                     stdout.toString(),
-                    "Execution timed out after " + timeLimitMs + "ms",
+                    withNotice(stderr, "Execution timed out after " + timeLimitMs + "ms"),
                     -1,
                     executionTime,
-                    false);
+                    false,
+                    null,
+                    null,
+                    true);
         }
 
         // Get exit code with retry for Docker delay
@@ -266,14 +677,74 @@ public class DockerExecutor {
             log.warn("Exit code still null after retries for exec {}", execId);
         }
 
+        String stderrText = stderr.toString();
+        if (stderr.getDroppedBytes() > 0) {
+            // Head was truncated; the rusage trailer (if any) survives in the tail.
+            String tail = stderr.tail();
+            int marker = tail.lastIndexOf(RUSAGE_MARKER);
+            if (marker >= 0) {
+                stderrText += "\n" + tail.substring(marker);
+            }
+        }
+
         return new ExecutionResult(
                 stdout.toString(),
-                stderr.toString(),
+                stderrText,
                 exitCode,
                 executionTime,
                 exitCode == 0);
     }
 
+    /**
+     * Stderr of an exec the agent stopped waiting for, followed by why. What
+     * was captured is kept: the supervisor's process-group line is in it.
+     */
+    private static String withNotice(BoundedOutputStream stderr, String notice) {
+        String captured = stderr.toString();
+        return captured.isEmpty() || captured.endsWith("\n") ? captured + notice : captured + "\n" + notice;
+    }
+
+    /**
+     * Return a pooled container to a pristine state between leases: kill every
+     * process except PID 1 (the keep-alive), then wipe {@code /workspace} and
+     * {@code /tmp}. In bind mode the host side of the mount is emptied as
+     * well, since the agent wrote the source file there.
+     *
+     * @return true if the container is still running and was wiped cleanly
+     */
+    public boolean resetContainer(String containerId, Path workDir) {
+        try {
+            ExecutionResult wipe = executeCommandInContainer(containerId,
+                    "kill -9 -1 2>/dev/null; "
+                            + "rm -rf /workspace/* /workspace/.[!.]* /tmp/* /tmp/.[!.]* 2>/dev/null; "
+                            + "exit 0",
+                    10_000);
+            if (wipe.getExitCode() == null || wipe.getExitCode() != 0) {
+                log.warn("Wipe of container {} exited with {}", containerId, wipe.getExitCode());
+                return false;
+            }
+            if (workDir != null) {
+                clearDirectory(workDir.toFile());
+            }
+            Boolean running = dockerClient.inspectContainerCmd(containerId).exec().getState().getRunning();
+            return Boolean.TRUE.equals(running);
+        } catch (Exception e) {
+            log.warn("Failed to reset container {}: {}", containerId, e.getMessage());
+            return false;
+        }
+    }
+
+    /** IDs of all containers (running or not) carrying the given label. */
+    public List<String> listContainersWithLabel(String label) {
+        return dockerClient.listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(List.of(label))
+                .exec()
+                .stream()
+                .map(Container::getId)
+                .toList();
+    }
+
     /** Cleanup: stop + remove container and delete temp directory. */
     public void cleanup(String containerId, Path tempDir) {
         if (containerId != null) {
@@ -297,10 +768,24 @@ public class DockerExecutor {
         }
     }
 
-    private Path createTempDirectory() throws IOException {
+    /**
+     * Create an empty directory under the temp base dir. Pooled
+     * containers use the {@code pool-} prefix so {@code TempDirJanitor},
+     * which only sweeps {@code exec-*}, never pulls a live bind mount away.
+     */
+    public Path createTempDirectory(String prefix) throws IOException {
         Path baseDir = Paths.get(tempBaseDir);
         Files.createDirectories(baseDir);
-        return Files.createTempDirectory(baseDir, "exec-");
+        return Files.createTempDirectory(baseDir, prefix);
+    }
+
+    private void clearDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
     }
 
     private void deleteDirectory(File directory) {
@@ -314,4 +799,48 @@ public class DockerExecutor {
         }
         directory.delete();
     }
+
+    /**
+     * Routes exec frames into bounded captures (and the comparator), and
+     * detaches from the exec as soon as the comparator's output limit is hit.
+     */
+    private static final class ExecOutputCallback extends ResultCallback.Adapter<Frame> {
+        private final BoundedOutputStream stdout;
+        private final BoundedOutputStream stderr;
+        private final OutputComparator comparator;
+        private volatile boolean outputLimitExceeded;
+
+        private ExecOutputCallback(BoundedOutputStream stdout, BoundedOutputStream stderr,
+                                   OutputComparator comparator) {
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public void onNext(Frame frame) {
+            byte[] payload = frame.getPayload();
+            if (payload == null || outputLimitExceeded) {
+                return;
+            }
+            switch (frame.getStreamType()) {
+                case STDOUT, RAW -> {
+                    stdout.write(payload, 0, payload.length);
+                    if (comparator != null) {
+                        comparator.write(payload, 0, payload.length);
+                        if (comparator.isLimitExceeded()) {
+                            outputLimitExceeded = true;
+                            try {
+                                close();
+                            } catch (IOException ignored) {
+                                // detaching is best effort
+                            }
+                        }
+                    }
+                }
+                case STDERR -> stderr.write(payload, 0, payload.length);
+                default -> { }
+            }
+        }
+    }
 }
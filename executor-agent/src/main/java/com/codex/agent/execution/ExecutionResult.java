@@ -19,4 +19,17 @@ public class ExecutionResult {
     private Integer exitCode;
     private Long executionTimeMs;
     private boolean success;
+
+    /** user+sys CPU of the test's process tree; null when it could not be measured. */
+    private Long cpuTimeMs;
+
+    /** Peak RSS of the test's process tree; null when it could not be measured. */
+    private Long peakMemoryKb;
+
+    /** The agent stopped waiting (timeout, output limit) while the command may still be running. */
+    private boolean abandoned;
+
+    public ExecutionResult(String stdout, String stderr, Integer exitCode, Long executionTimeMs, boolean success) {
+        this(stdout, stderr, exitCode, executionTimeMs, success, null, null, false);
+    }
 }
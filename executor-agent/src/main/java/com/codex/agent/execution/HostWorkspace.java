@@ -0,0 +1,62 @@
+package com.codex.agent.execution;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Set;
+
+/** Bind-mode {@link Workspace}: a host directory the container sees at {@code /workspace}. */
+final class HostWorkspace implements Workspace {
+
+    private final Path dir;
+
+    HostWorkspace(Path dir) {
+        this.dir = dir;
+    }
+
+    @Override
+    public void write(String fileName, String content) throws IOException {
+        Files.writeString(dir.resolve(fileName), content);
+    }
+
+    @Override
+    public void importFrom(Path from, Set<String> excludedTopLevelNames) throws IOException {
+        copyTree(from, dir, excludedTopLevelNames);
+    }
+
+    @Override
+    public void exportTo(Path to, Set<String> excludedTopLevelNames) throws IOException {
+        copyTree(dir, to, excludedTopLevelNames);
+    }
+
+    private static void copyTree(Path from, Path to, Set<String> excludedTopLevelNames) throws IOException {
+        Files.walkFileTree(from, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(from) && excluded(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(to.resolve(from.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!excluded(file)) {
+                    Path target = to.resolve(from.relativize(file).toString());
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            private boolean excluded(Path path) {
+                return path.getParent().equals(from)
+                        && excludedTopLevelNames.contains(path.getFileName().toString());
+            }
+        });
+    }
+}
@@ -0,0 +1,298 @@
+package com.codex.agent.execution;
+
+import java.io.OutputStream;
+
+/**
+ * Verbatim copy of {@code com.codex.platform.common.util.OutputComparator}
+ * (see {@link OutputNormalizer} for why the two sides must agree).
+ *
+ * <p>Streaming equivalent of {@link OutputNormalizer#areEqual(String, String)}.
+ *
+ * <p>Program output is pushed in as raw bytes (it is an {@link OutputStream},
+ * so it can sit directly behind a Docker exec callback) and compared on the
+ * fly against the expected output, which is normalized lazily from the
+ * original String. Neither side is ever copied, split or regex-processed.
+ *
+ * <p>Canonical form — identical to what {@code OutputNormalizer} produces:
+ * <ul>
+ *   <li>leading and trailing whitespace is dropped;</li>
+ *   <li>{@code \r\n} and lone {@code \r} count as one line break;</li>
+ *   <li>a whitespace run between two non-whitespace characters containing
+ *   k line breaks becomes k {@code \n} followed by the whitespace after the
+ *   last break (the next line's indentation); with no line break the run is
+ *   kept as is.</li>
+ * </ul>
+ * Whitespace is the regex {@code \s} set: space, tab, LF, VT, FF, CR.
+ *
+ * <p>Comparison stops at the first mismatch. Once more than
+ * {@code expectedBytes + limitSlackBytes} raw bytes have been written the
+ * verdict becomes {@link Verdict#OUTPUT_LIMIT_EXCEEDED} and the producer
+ * should stop feeding output.
+ *
+ * <p>Not thread-safe: one writer at a time.
+ */
+public class OutputComparator extends OutputStream {
+
+    public enum Verdict { MATCH, MISMATCH, OUTPUT_LIMIT_EXCEEDED }
+
+    private final ExpectedCursor expected;
+    private final long outputLimitBytes;
+    private long rawBytes;
+    private Verdict failure;
+
+    // Push-side normalizer state for the actual output.
+    private boolean started;
+    private boolean lastWasCr;
+    private int pendingBreaks;
+    private byte[] pendingWhitespace = new byte[16];
+    private int pendingWhitespaceLen;
+
+    public OutputComparator(String expectedOutput, long limitSlackBytes) {
+        String source = expectedOutput == null ? "" : expectedOutput;
+        this.expected = new ExpectedCursor(source);
+        this.outputLimitBytes = utf8Length(source) + Math.max(0, limitSlackBytes);
+    }
+
+    /** One-shot comparison of two complete outputs. Same result as {@code OutputNormalizer.areEqual}. */
+    public static boolean matches(String expectedOutput, String actualOutput) {
+        OutputComparator comparator = new OutputComparator(expectedOutput, Long.MAX_VALUE / 2);
+        comparator.write(actualOutput == null ? "" : actualOutput);
+        return comparator.verdict() == Verdict.MATCH;
+    }
+
+    @Override
+    public void write(int b) {
+        if (failure != null) return;
+        if (++rawBytes > outputLimitBytes) {
+            failure = Verdict.OUTPUT_LIMIT_EXCEEDED;
+            return;
+        }
+        accept((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (failure != null) return;
+        long allowed = outputLimitBytes - rawBytes;
+        int n = (int) Math.min(len, Math.max(0, allowed));
+        for (int i = 0; i < n && failure == null; i++) {
+            accept(b[off + i]);
+        }
+        rawBytes += len;
+        if (failure == null && len > n) {
+            failure = Verdict.OUTPUT_LIMIT_EXCEEDED;
+        }
+    }
+
+    /** Feed a String as UTF-8 without materializing its byte array. */
+    public void write(String s) {
+        ExpectedCursor.Utf8 utf8 = new ExpectedCursor.Utf8();
+        for (int i = 0; i < s.length() && failure == null; ) {
+            i = utf8.encode(s, i);
+            for (int j = 0; j < utf8.len; j++) {
+                write(utf8.bytes[j]);
+            }
+        }
+    }
+
+    /** True once the verdict can no longer become MATCH; further output is ignored. */
+    public boolean isDecided() {
+        return failure != null;
+    }
+
+    /** True once the output limit was hit and the producer should be stopped. */
+    public boolean isLimitExceeded() {
+        return failure == Verdict.OUTPUT_LIMIT_EXCEEDED;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Final verdict. Call after all output has been written; trailing
+     * whitespace still pending in the actual stream is discarded, as in the
+     * canonical form.
+     */
+    public Verdict verdict() {
+        if (failure != null) {
+            return failure;
+        }
+        return expected.next() == -1 ? Verdict.MATCH : Verdict.MISMATCH;
+    }
+
+    // ───── actual side: push normalizer ─────────────────────────────────
+
+    private void accept(byte b) {
+        if (isWhitespace(b)) {
+            if (!started) {
+                return;     // leading whitespace
+            }
+            if (b == '\n' && lastWasCr) {
+                lastWasCr = false;      // second half of \r\n
+                return;
+            }
+            lastWasCr = b == '\r';
+            if (b == '\n' || b == '\r') {
+                pendingBreaks++;
+                pendingWhitespaceLen = 0;   // trailing spaces of the finished line are dropped
+            } else {
+                bufferWhitespace(b);
+            }
+            return;
+        }
+
+        lastWasCr = false;
+        if (started) {
+            for (; pendingBreaks > 0; pendingBreaks--) {
+                if (!emit((byte) '\n')) return;
+            }
+            for (int i = 0; i < pendingWhitespaceLen; i++) {
+                if (!emit(pendingWhitespace[i])) return;
+            }
+            pendingWhitespaceLen = 0;
+        }
+        started = true;
+        emit(b);
+    }
+
+    private boolean emit(byte b) {
+        if (expected.next() != (b & 0xFF)) {
+            failure = Verdict.MISMATCH;
+            return false;
+        }
+        return true;
+    }
+
+    private void bufferWhitespace(byte b) {
+        if (pendingWhitespaceLen == pendingWhitespace.length) {
+            byte[] grown = new byte[pendingWhitespace.length * 2];
+            System.arraycopy(pendingWhitespace, 0, grown, 0, pendingWhitespaceLen);
+            pendingWhitespace = grown;
+        }
+        pendingWhitespace[pendingWhitespaceLen++] = b;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static long utf8Length(String s) {
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n += 1;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else n += 3;
+        }
+        return n;
+    }
+
+    // ───── expected side: pull normalizer ───────────────────────────────
+
+    /**
+     * Yields the canonical form of a String as UTF-8 bytes, one at a time.
+     * Whitespace runs are resolved by looking ahead in the String, so no
+     * buffering is needed on this side.
+     */
+    private static final class ExpectedCursor {
+        private final String s;
+        private int pos;
+        private boolean started;
+        private int pendingBreaks;
+        private int pendingFrom;
+        private int pendingTo;
+        private final Utf8 utf8 = new Utf8();
+        private int utf8Pos;
+
+        private ExpectedCursor(String s) {
+            this.s = s;
+        }
+
+        /** Next canonical byte (0-255), or -1 at the end. */
+        int next() {
+            while (true) {
+                if (utf8Pos < utf8.len) return utf8.bytes[utf8Pos++] & 0xFF;
+                if (pendingBreaks > 0) {
+                    pendingBreaks--;
+                    return '\n';
+                }
+                if (pendingFrom < pendingTo) return s.charAt(pendingFrom++);
+                if (pos >= s.length()) return -1;
+
+                if (isWhitespace(s.charAt(pos))) {
+                    int breaks = 0;
+                    int afterLastBreak = pos;
+                    int end = pos;
+                    while (end < s.length() && isWhitespace(s.charAt(end))) {
+                        char c = s.charAt(end);
+                        if (c == '\r' || c == '\n') {
+                            breaks++;
+                            if (c == '\r' && end + 1 < s.length() && s.charAt(end + 1) == '\n') end++;
+                            afterLastBreak = end + 1;
+                        }
+                        end++;
+                    }
+                    if (end >= s.length()) {
+                        pos = end;
+                        return -1;              // trailing whitespace
+                    }
+                    if (started) {
+                        pendingBreaks = breaks;
+                        pendingFrom = afterLastBreak;
+                        pendingTo = end;
+                    }
+                    pos = end;
+                    continue;
+                }
+
+                started = true;
+                pos = utf8.encode(s, pos);
+                utf8Pos = 0;
+            }
+        }
+
+        /** Reusable single-code-point UTF-8 encoder. */
+        private static final class Utf8 {
+            final byte[] bytes = new byte[4];
+            int len;
+
+            /** Encodes the code point at {@code i}; returns the index after it. */
+            int encode(String s, int i) {
+                char c = s.charAt(i);
+                int cp = c;
+                int next = i + 1;
+                if (Character.isHighSurrogate(c) && next < s.length() && Character.isLowSurrogate(s.charAt(next))) {
+                    cp = Character.toCodePoint(c, s.charAt(next));
+                    next++;
+                } else if (Character.isSurrogate(c)) {
+                    cp = '?';       // unpaired surrogate: same replacement String.getBytes(UTF_8) uses
+                }
+
+                if (cp < 0x80) {
+                    bytes[0] = (byte) cp;
+                    len = 1;
+                } else if (cp < 0x800) {
+                    bytes[0] = (byte) (0xC0 | (cp >> 6));
+                    bytes[1] = (byte) (0x80 | (cp & 0x3F));
+                    len = 2;
+                } else if (cp < 0x10000) {
+                    bytes[0] = (byte) (0xE0 | (cp >> 12));
+                    bytes[1] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[2] = (byte) (0x80 | (cp & 0x3F));
+                    len = 3;
+                } else {
+                    bytes[0] = (byte) (0xF0 | (cp >> 18));
+                    bytes[1] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    bytes[2] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    bytes[3] = (byte) (0x80 | (cp & 0x3F));
+                    len = 4;
+                }
+                return next;
+            }
+        }
+    }
+}
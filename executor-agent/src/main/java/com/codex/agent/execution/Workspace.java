@@ -0,0 +1,25 @@
+package com.codex.agent.execution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * A submission's {@code /workspace}, wherever it lives. Obtained from
+ * {@link DockerExecutor#workspace}: a host directory bind-mounted into the
+ * container ({@code execution.workspace.mode=bind}), or a tmpfs inside the
+ * container that is only reachable through {@code docker exec}
+ * ({@code tmpfs}). Callers read and write it through here and never assume
+ * a host path exists.
+ */
+public interface Workspace {
+
+    /** Create or replace {@code fileName} at the workspace root. */
+    void write(String fileName, String content) throws IOException;
+
+    /** Copy everything under host directory {@code from} into the workspace, minus the given top-level names. */
+    void importFrom(Path from, Set<String> excludedTopLevelNames) throws IOException;
+
+    /** Copy everything in the workspace into host directory {@code to}, minus the given top-level names. */
+    void exportTo(Path to, Set<String> excludedTopLevelNames) throws IOException;
+}
@@ -0,0 +1,120 @@
+package com.codex.agent.execution;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * In-memory tar archives for moving files in and out of a tmpfs
+ * {@code /workspace}. Only regular files and directories are carried;
+ * the one permission bit that matters to the judge (executable) survives
+ * the round trip, ownership and timestamps do not.
+ */
+final class WorkspaceArchive {
+
+    private WorkspaceArchive() {
+    }
+
+    /** A tar holding the given files at the archive root. */
+    static byte[] pack(Map<String, byte[]> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = newTar(bytes)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                putFile(tar, file.getKey(), file.getValue(), false);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** A tar of everything under {@code dir} except the given top-level names. */
+    static byte[] pack(Path dir, Set<String> excludedTopLevelNames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = newTar(bytes);
+             Stream<Path> walk = Files.walk(dir)) {
+            List<Path> paths = walk.filter(p -> !p.equals(dir)).sorted().toList();
+            for (Path path : paths) {
+                Path relative = dir.relativize(path);
+                if (excludedTopLevelNames.contains(relative.getName(0).toString())) {
+                    continue;
+                }
+                String name = relative.toString().replace('\\', '/');
+                if (Files.isDirectory(path)) {
+                    TarArchiveEntry entry = new TarArchiveEntry(name + "/");
+                    entry.setMode(TarArchiveEntry.DEFAULT_DIR_MODE);
+                    tar.putArchiveEntry(entry);
+                    tar.closeArchiveEntry();
+                } else if (Files.isRegularFile(path)) {
+                    putFile(tar, name, Files.readAllBytes(path), Files.isExecutable(path));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Extract {@code archive} into {@code dir}, skipping the given top-level
+     * names, links, devices and any entry that would land outside {@code dir}.
+     */
+    static void unpack(byte[] archive, Path dir, Set<String> excludedTopLevelNames) throws IOException {
+        Path root = dir.toAbsolutePath().normalize();
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(archive))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                String name = entry.getName();
+                while (name.startsWith("./")) {
+                    name = name.substring(2);
+                }
+                if (name.isEmpty() || name.equals(".")) {
+                    continue;
+                }
+                Path target = root.resolve(name).normalize();
+                if (!target.startsWith(root) || target.equals(root)) {
+                    throw new IOException("archive entry escapes the workspace: " + entry.getName());
+                }
+                if (excludedTopLevelNames.contains(root.relativize(target).getName(0).toString())) {
+                    continue;
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else if (entry.isFile()) {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(tar, target, StandardCopyOption.REPLACE_EXISTING);
+                    if ((entry.getMode() & 0111) != 0) {
+                        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rwxr-xr-x"));
+                    }
+                }
+            }
+        }
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private static TarArchiveOutputStream newTar(ByteArrayOutputStream bytes) {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes);
+        tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        return tar;
+    }
+
+    private static void putFile(TarArchiveOutputStream tar, String name, byte[] content,
+                                boolean executable) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(content.length);
+        entry.setMode(TarArchiveEntry.DEFAULT_FILE_MODE & ~0777 | (executable ? 0755 : 0644));
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+}
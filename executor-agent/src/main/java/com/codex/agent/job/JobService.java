@@ -0,0 +1,319 @@
+package com.codex.agent.job;
+
+import com.codex.agent.dto.ExecuteRequest;
+import com.codex.agent.dto.ExecuteResponse;
+import com.codex.agent.dto.JobStatus;
+import com.codex.agent.service.ExecutionRunner;
+import com.codex.agent.service.ExecutionSlots;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous execution: {@code POST /v1/jobs} lands here.
+ *
+ * <p>Submissions go into a bounded FIFO queue and the caller gets a job id
+ * back immediately. Worker threads take jobs off the queue, wait for an
+ * {@link ExecutionSlots} permit (the same cap the synchronous endpoints use)
+ * and run them through {@link ExecutionRunner}. The result is kept for
+ * {@code executor.agent.jobs.retention-minutes} for {@code GET /v1/jobs/{id}}
+ * and, when the request carried a {@code callbackUrl}, POSTed there with the
+ * agent's bearer token.
+ *
+ * <p>A second submit for a submission that still has a live (queued, running
+ * or finished-and-retained) job returns that job instead of queueing a
+ * duplicate — same insurance against backend retries as the idempotency
+ * cache on {@code /v1/execute}.
+ *
+ * <p>Jobs are in-memory only: an agent restart loses the queue, and pollers
+ * see 404 and resubmit.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private final ExecutionRunner executionRunner;
+    private final ExecutionSlots executionSlots;
+
+    private final int queueCapacity;
+    private final int workerCount;
+    private final long retentionMs;
+    private final String token;
+
+    private final BlockingQueue<Job> queue;
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> jobsBySubmission = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private RestClient callbackClient;
+    private volatile boolean shuttingDown;
+
+    // Metrics
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong callbackFailures = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong maxQueueWaitMs = new AtomicLong();
+
+    public JobService(ExecutionRunner executionRunner,
+                      ExecutionSlots executionSlots,
+                      @Value("${executor.agent.jobs.queue-capacity:64}") int queueCapacity,
+                      @Value("${executor.agent.jobs.workers:0}") int workers,
+                      @Value("${executor.agent.jobs.retention-minutes:10}") long retentionMinutes,
+                      @Value("${executor.agent.token:}") String token) {
+        this.executionRunner = executionRunner;
+        this.executionSlots = executionSlots;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.workerCount = workers > 0 ? workers : executionSlots.max();
+        this.retentionMs = retentionMinutes * 60_000L;
+        this.token = token;
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(5_000);
+        factory.setReadTimeout(10_000);
+        callbackClient = RestClient.builder().requestFactory(factory).build();
+
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "job-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Job queue initialized: capacity={}, workers={}, retention={}min",
+                queueCapacity, workerCount, retentionMs / 60_000);
+    }
+
+    @PreDestroy
+    void stop() {
+        shuttingDown = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Enqueue a request. Returns the job's current status, or null when the
+     * queue is full (the controller turns that into a 503).
+     */
+    public JobStatus submit(ExecuteRequest request) {
+        UUID submissionId = request.getSubmissionId();
+        synchronized (jobsBySubmission) {
+            UUID existingId = jobsBySubmission.get(submissionId);
+            Job existing = existingId == null ? null : jobs.get(existingId);
+            if (existing != null && !JobStatus.FAILED.equals(existing.state)) {
+                log.info("Submission {} already has job {} ({}), returning it", submissionId, existing.id, existing.state);
+                return existing.toStatus(positionOf(existing));
+            }
+
+            Job job = new Job(UUID.randomUUID(), request);
+            if (!queue.offer(job)) {
+                rejected.incrementAndGet();
+                log.warn("Submission {} rejected: job queue full ({} queued)", submissionId, queueCapacity);
+                return null;
+            }
+            jobs.put(job.id, job);
+            jobsBySubmission.put(submissionId, job.id);
+            submitted.incrementAndGet();
+            log.info("Submission {} queued as job {} (depth {})", submissionId, job.id, queue.size());
+            return job.toStatus(positionOf(job));
+        }
+    }
+
+    /** Current status of a job, or null if unknown or already expired. */
+    public JobStatus get(UUID jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.toStatus(positionOf(job));
+    }
+
+    public Map<String, Object> stats() {
+        long done = completed.get() + failed.get();
+        Job head = queue.peek();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", queueCapacity);
+        stats.put("running", running.get());
+        stats.put("workers", workerCount);
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("callbackFailures", callbackFailures.get());
+        stats.put("oldestQueuedMs", head == null ? 0 : System.currentTimeMillis() - head.enqueuedAtMs);
+        stats.put("avgQueueWaitMs", done == 0 ? 0 : totalQueueWaitMs.get() / done);
+        stats.put("maxQueueWaitMs", maxQueueWaitMs.get());
+        return stats;
+    }
+
+    /** Drop finished jobs past their retention. Runs every minute. */
+    @Scheduled(fixedDelay = 60_000L, initialDelay = 60_000L)
+    public void expire() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        int expired = 0;
+        for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+            Job job = it.next();
+            if (job.finishedAtMs > 0 && job.finishedAtMs < cutoff) {
+                it.remove();
+                jobsBySubmission.remove(job.request.getSubmissionId(), job.id);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            log.debug("Expired {} finished jobs", expired);
+        }
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private void workLoop() {
+        while (!shuttingDown) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                executionSlots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finish(job, null, "agent shutting down");
+                return;
+            }
+
+            try {
+                runJob(job);
+            } finally {
+                executionSlots.release();
+            }
+        }
+    }
+
+    private void runJob(Job job) {
+        job.startedAtMs = System.currentTimeMillis();
+        job.state = JobStatus.RUNNING;
+        running.incrementAndGet();
+
+        long waitMs = job.startedAtMs - job.enqueuedAtMs;
+        totalQueueWaitMs.addAndGet(waitMs);
+        maxQueueWaitMs.accumulateAndGet(waitMs, Math::max);
+
+        try {
+            finish(job, executionRunner.run(job.request), null);
+        } catch (Exception e) {
+            log.error("Job {} (submission {}) failed", job.id, job.request.getSubmissionId(), e);
+            finish(job, null, e.getMessage() == null ? "execution failed" : e.getMessage());
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    private void finish(Job job, ExecuteResponse response, String error) {
+        job.result = response;
+        job.error = error;
+        job.finishedAtMs = System.currentTimeMillis();
+        job.state = response != null ? JobStatus.DONE : JobStatus.FAILED;
+        (response != null ? completed : failed).incrementAndGet();
+
+        log.info("Job {} (submission {}) {} after {}ms queued + {}ms running",
+                job.id, job.request.getSubmissionId(), job.state,
+                job.startedAtMs > 0 ? job.startedAtMs - job.enqueuedAtMs : job.finishedAtMs - job.enqueuedAtMs,
+                job.startedAtMs > 0 ? job.finishedAtMs - job.startedAtMs : 0);
+
+        String callbackUrl = job.request.getCallbackUrl();
+        if (callbackUrl != null && !callbackUrl.isBlank()) {
+            postCallback(job, callbackUrl);
+        }
+    }
+
+    /** Best effort, one retry. A poller can still fetch the result while it is retained. */
+    private void postCallback(Job job, String callbackUrl) {
+        JobStatus status = job.toStatus(null);
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                callbackClient.post()
+                        .uri(callbackUrl)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(status)
+                        .retrieve()
+                        .toBodilessEntity();
+                return;
+            } catch (Exception e) {
+                log.warn("Job {} callback to {} failed (attempt {}): {}", job.id, callbackUrl, attempt, e.getMessage());
+            }
+        }
+        callbackFailures.incrementAndGet();
+    }
+
+    /** 1-based queue position, or null once the job has left the queue. O(depth), depth is bounded. */
+    private Integer positionOf(Job job) {
+        if (!JobStatus.QUEUED.equals(job.state)) {
+            return null;
+        }
+        int position = 1;
+        for (Job queued : queue) {
+            if (queued == job) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    private static final class Job {
+        private final UUID id;
+        private final ExecuteRequest request;
+        private final long enqueuedAtMs = System.currentTimeMillis();
+
+        private volatile String state = JobStatus.QUEUED;
+        private volatile long startedAtMs;
+        private volatile long finishedAtMs;
+        private volatile ExecuteResponse result;
+        private volatile String error;
+
+        private Job(UUID id, ExecuteRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private JobStatus toStatus(Integer queuePosition) {
+            long now = System.currentTimeMillis();
+            return JobStatus.builder()
+                    .jobId(id)
+                    .submissionId(request.getSubmissionId())
+                    .state(state)
+                    .queuePosition(queuePosition)
+                    .queueWaitMs(startedAtMs > 0 ? startedAtMs - enqueuedAtMs : now - enqueuedAtMs)
+                    .runTimeMs(finishedAtMs > 0 && startedAtMs > 0 ? finishedAtMs - startedAtMs : null)
+                    .result(result)
+                    .error(error)
+                    .build();
+        }
+    }
+}
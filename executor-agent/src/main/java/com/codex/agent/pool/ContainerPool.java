@@ -0,0 +1,295 @@
+package com.codex.agent.pool;
+
+import com.codex.agent.execution.DockerExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps N pre-started, hardened containers per executor image so a submission
+ * does not pay for {@code docker create} + {@code docker start} on the hot path.
+ *
+ * <p>Lifecycle of a pooled container:
+ * <ol>
+ *   <li>Created in the background with the same sandbox as a one-off container
+ *       (no network, seccomp, read-only rootfs, pids limit) and its own
+ *       {@code /workspace} (a tmpfs, or in bind mode a dedicated host directory).</li>
+ *   <li>Leased to exactly one {@code ExecutionRunner.run()} call.</li>
+ *   <li>On release: every process except the keep-alive is killed and
+ *       {@code /workspace} + {@code /tmp} are wiped. If that fails, or the
+ *       container hit {@code executor.agent.pool.max-leases}, it is destroyed
+ *       instead of being reused.</li>
+ * </ol>
+ *
+ * <p>Pool sizes are configured per image via {@code executor.agent.pool.sizes},
+ * e.g. {@code codex-cpp:latest=2,codex-python:latest=1}. Images without an
+ * entry, requests needing more memory than {@code executor.agent.pool.memory-mb},
+ * and leases that time out all fall back to a fresh container — the pool is
+ * purely an optimisation and never a reason to fail a submission.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContainerPool {
+
+    /** Label put on every pooled container so orphans from a previous run can be found. */
+    static final String POOL_LABEL = "codex.pool";
+
+    private final DockerExecutor dockerExecutor;
+
+    @Value("${executor.agent.pool.sizes:}")
+    private String poolSizes;
+
+    @Value("${executor.agent.pool.memory-mb:512}")
+    private int pooledMemoryMb;
+
+    @Value("${executor.agent.pool.lease-timeout-ms:2000}")
+    private long leaseTimeoutMs;
+
+    @Value("${executor.agent.pool.max-leases:100}")
+    private int maxLeases;
+
+    @Value("${executor.agent.pool.refill-threads:2}")
+    private int refillThreads;
+
+    private final Map<String, ImagePool> pools = new ConcurrentHashMap<>();
+    private ExecutorService refiller;
+
+    // Metrics
+    private final AtomicLong leases = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong cumulativeLeaseWaitMs = new AtomicLong(0);
+    private final AtomicLong maxLeaseWaitMs = new AtomicLong(0);
+    private final AtomicLong recycled = new AtomicLong(0);
+    private final AtomicLong destroyed = new AtomicLong(0);
+
+    @PostConstruct
+    void init() {
+        parseSizes(poolSizes).forEach((image, size) -> pools.put(image, new ImagePool(image, size)));
+        if (pools.isEmpty()) {
+            log.info("Container pool disabled (executor.agent.pool.sizes is empty)");
+            return;
+        }
+
+        refiller = Executors.newFixedThreadPool(Math.max(1, refillThreads), r -> {
+            Thread t = new Thread(r, "pool-refill");
+            t.setDaemon(true);
+            return t;
+        });
+
+        removeOrphans();
+        pools.values().forEach(this::refill);
+        log.info("Container pool initialized: {} (memory {}MB, max {} leases per container)",
+                poolSizes, pooledMemoryMb, maxLeases);
+    }
+
+    /**
+     * Lease a warm container for {@code dockerImage}.
+     *
+     * @return a leased container, or null if the image is not pooled, needs
+     *         more memory than pooled containers have, or none became free
+     *         within {@code executor.agent.pool.lease-timeout-ms}
+     */
+    public PooledContainer acquire(String dockerImage, int memoryLimitMb) {
+        ImagePool pool = pools.get(dockerImage);
+        if (pool == null || memoryLimitMb > pooledMemoryMb) {
+            return null;
+        }
+
+        long start = System.currentTimeMillis();
+        PooledContainer container;
+        try {
+            container = pool.idle.poll(leaseTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            refill(pool);
+        }
+        long waitMs = System.currentTimeMillis() - start;
+
+        if (container == null) {
+            misses.incrementAndGet();
+            log.warn("No pooled container for {} within {}ms, falling back to a fresh one",
+                    dockerImage, leaseTimeoutMs);
+            return null;
+        }
+
+        container.markLeased();
+        pool.leased.incrementAndGet();
+        leases.incrementAndGet();
+        cumulativeLeaseWaitMs.addAndGet(waitMs);
+        maxLeaseWaitMs.accumulateAndGet(waitMs, Math::max);
+        log.debug("Leased pooled container {} for {} (waited {}ms, lease #{})",
+                container.getContainerId(), dockerImage, waitMs, container.getLeaseCount());
+        return container;
+    }
+
+    /** Hand a leased container back. Wiping happens in the background. */
+    public void release(PooledContainer container) {
+        ImagePool pool = pools.get(container.getDockerImage());
+        pool.leased.decrementAndGet();
+        try {
+            refiller.submit(() -> recycle(pool, container));
+        } catch (RejectedExecutionException shuttingDown) {
+            destroy(container);
+        }
+    }
+
+    /** Occupancy and lease-wait statistics for {@code /v1/healthz}. */
+    public Map<String, Object> stats() {
+        Map<String, Object> images = new LinkedHashMap<>();
+        pools.forEach((image, pool) -> images.put(image, Map.of(
+                "target", pool.target,
+                "idle", pool.idle.size(),
+                "leased", pool.leased.get(),
+                "creating", pool.creating.get())));
+
+        long leaseCount = leases.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("images", images);
+        stats.put("leases", leaseCount);
+        stats.put("misses", misses.get());
+        stats.put("recycled", recycled.get());
+        stats.put("destroyed", destroyed.get());
+        stats.put("avgLeaseWaitMs", leaseCount > 0 ? (double) cumulativeLeaseWaitMs.get() / leaseCount : 0.0);
+        stats.put("maxLeaseWaitMs", maxLeaseWaitMs.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refiller == null) {
+            return;
+        }
+        refiller.shutdownNow();
+        for (ImagePool pool : pools.values()) {
+            PooledContainer container;
+            while ((container = pool.idle.poll()) != null) {
+                destroy(container);
+            }
+        }
+        log.info("Container pool shut down");
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private void recycle(ImagePool pool, PooledContainer container) {
+        boolean reusable = container.getLeaseCount() < maxLeases
+                && dockerExecutor.resetContainer(container.getContainerId(), container.getWorkDir());
+
+        if (reusable && pool.idle.size() + pool.creating.get() < pool.target) {
+            pool.idle.offer(container);
+            recycled.incrementAndGet();
+        } else {
+            destroy(container);
+        }
+        refill(pool);
+    }
+
+    /** Top the pool back up to its target in the background. */
+    private void refill(ImagePool pool) {
+        synchronized (pool) {
+            while (pool.idle.size() + pool.creating.get() < pool.target) {
+                pool.creating.incrementAndGet();
+                try {
+                    refiller.submit(() -> create(pool));
+                } catch (RejectedExecutionException shuttingDown) {
+                    pool.creating.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void create(ImagePool pool) {
+        Path workDir = null;
+        try {
+            workDir = dockerExecutor.createWorkspaceDirectory("pool-");
+            String containerId = dockerExecutor.createAndStartContainer(
+                    pool.image,
+                    workDir,
+                    pooledMemoryMb,
+                    List.of("sleep", "infinity"),
+                    Map.of(POOL_LABEL, pool.image));
+            pool.idle.offer(new PooledContainer(containerId, pool.image, workDir, pooledMemoryMb));
+            log.debug("Pooled container {} ready for {}", containerId, pool.image);
+        } catch (Exception e) {
+            // Not retried immediately: the next acquire/release triggers another refill.
+            log.error("Failed to create pooled container for {}: {}", pool.image, e.getMessage());
+            dockerExecutor.cleanup(null, workDir);
+        } finally {
+            pool.creating.decrementAndGet();
+        }
+    }
+
+    private void destroy(PooledContainer container) {
+        dockerExecutor.cleanup(container.getContainerId(), container.getWorkDir());
+        destroyed.incrementAndGet();
+    }
+
+    /** Containers left behind by a previous agent process (crash, kill -9). */
+    private void removeOrphans() {
+        try {
+            List<String> orphans = dockerExecutor.listContainersWithLabel(POOL_LABEL);
+            for (String containerId : orphans) {
+                dockerExecutor.cleanup(containerId, null);
+            }
+            if (!orphans.isEmpty()) {
+                log.warn("Removed {} orphaned pooled container(s) from a previous run", orphans.size());
+            }
+        } catch (Exception e) {
+            log.error("Could not list orphaned pooled containers: {}", e.getMessage());
+        }
+    }
+
+    /** Parses {@code image=size,image=size}. Image names contain ':' so '=' separates. */
+    static Map<String, Integer> parseSizes(String spec) {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return sizes;
+        }
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) continue;
+            int eq = trimmed.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid executor.agent.pool.sizes entry: " + trimmed);
+            }
+            int size = Integer.parseInt(trimmed.substring(eq + 1).trim());
+            if (size > 0) {
+                sizes.put(trimmed.substring(0, eq).trim(), size);
+            }
+        }
+        return sizes;
+    }
+
+    private static final class ImagePool {
+        private final String image;
+        private final int target;
+        private final LinkedBlockingDeque<PooledContainer> idle = new LinkedBlockingDeque<>();
+        private final AtomicInteger leased = new AtomicInteger(0);
+        private final AtomicInteger creating = new AtomicInteger(0);
+
+        private ImagePool(String image, int target) {
+            this.image = image;
+            this.target = target;
+        }
+    }
+}
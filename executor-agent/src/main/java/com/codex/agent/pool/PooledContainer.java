@@ -0,0 +1,38 @@
+package com.codex.agent.pool;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * A pre-started, hardened container owned by {@link ContainerPool}. While
+ * leased it belongs to exactly one submission; the pool wipes it before the
+ * next lease.
+ */
+@Getter
+public class PooledContainer {
+
+    private final String containerId;
+    private final String dockerImage;
+
+    /** Host directory bind-mounted at {@code /workspace} for the container's whole life; null with a tmpfs workspace. */
+    private final Path workDir;
+
+    private final int memoryLimitMb;
+    private final long createdAtMs;
+
+    /** Number of times this container has been handed out. */
+    private int leaseCount;
+
+    PooledContainer(String containerId, String dockerImage, Path workDir, int memoryLimitMb) {
+        this.containerId = containerId;
+        this.dockerImage = dockerImage;
+        this.workDir = workDir;
+        this.memoryLimitMb = memoryLimitMb;
+        this.createdAtMs = System.currentTimeMillis();
+    }
+
+    void markLeased() {
+        leaseCount++;
+    }
+}
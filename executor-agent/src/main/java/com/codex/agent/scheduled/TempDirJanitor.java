@@ -15,6 +15,10 @@ import java.time.Instant;
 /**
  * Backstop cleanup for orphaned exec-* directories.
  *
+ * <p>Only the legacy {@code execution.workspace.mode=bind} creates them: a
+ * tmpfs workspace lives and dies with its container, so with the default
+ * mode a sweep finds nothing.
+ *
  * <p>{@code DockerExecutor.cleanup()} normally deletes its temp directory in
  * the {@code finally} block of {@code ExecutionRunner.run()}. This janitor
  * exists to mop up the rare cases where:
@@ -0,0 +1,28 @@
+package com.codex.agent.service;
+
+import com.codex.agent.dto.ExecuteResponse;
+
+/**
+ * Progress callbacks from {@link ExecutionRunner#run}. With parallel tests
+ * {@link #onTestFinished} is called from test-exec threads, so implementations
+ * must be thread-safe. Callbacks must not throw — a failing listener (e.g. a
+ * disconnected client) must never change the verdict.
+ */
+public interface ExecutionListener {
+
+    ExecutionListener NONE = new ExecutionListener() {
+    };
+
+    /** Compile step finished (or was skipped / served from the compile cache). */
+    default void onCompiled(boolean success, long compileTimeMs, boolean cached) {
+    }
+
+    /**
+     * A test finished with a real result (not SKIPPED).
+     *
+     * @param testIndex zero-based index in the request's test list
+     * @param completed number of tests finished so far, this one included
+     */
+    default void onTestFinished(int testIndex, int completed, int total, ExecuteResponse.TestResult result) {
+    }
+}
@@ -1,17 +1,33 @@
 package com.codex.agent.service;
 
+import com.codex.agent.cache.CompileCache;
 import com.codex.agent.dto.ExecuteRequest;
 import com.codex.agent.dto.ExecuteResponse;
 import com.codex.agent.execution.DockerExecutor;
 import com.codex.agent.execution.ExecutionResult;
-import com.codex.agent.execution.OutputNormalizer;
+import com.codex.agent.execution.OutputComparator;
+import com.codex.agent.execution.Workspace;
+import com.codex.agent.pool.ContainerPool;
+import com.codex.agent.pool.PooledContainer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,13 +46,66 @@ import java.util.regex.Pattern;
 public class ExecutionRunner {
 
     private final DockerExecutor dockerExecutor;
+    private final ContainerPool containerPool;
+    private final CompileCache compileCache;
+
+    /**
+     * Max tests of ONE submission running at once. 1 = strictly sequential
+     * (previous behaviour). The container's CPU quota and memory cap are
+     * scaled by the same factor so concurrent tests don't steal each other's
+     * time budget.
+     */
+    @Value("${executor.agent.test-parallelism:1}")
+    private int testParallelism;
+
+    /**
+     * Agent-wide cap on concurrently running test execs across ALL
+     * submissions, so one big suite cannot starve the others.
+     */
+    @Value("${executor.agent.test-threads:4}")
+    private int testThreads;
+
+    /**
+     * A test's stdout may exceed the expected output by this many bytes before
+     * it is cut off as OUTPUT_LIMIT_EXCEEDED.
+     */
+    @Value("${execution.output.limit-slack-bytes:1048576}")
+    private long outputLimitSlackBytes;
+
+    private ExecutorService testExecutor;
+
+    @PostConstruct
+    void initTestExecutor() {
+        AtomicInteger threadId = new AtomicInteger();
+        testExecutor = Executors.newFixedThreadPool(Math.max(1, testThreads), r -> {
+            Thread t = new Thread(r, "test-exec-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdownTestExecutor() {
+        testExecutor.shutdownNow();
+    }
 
     public ExecuteResponse run(ExecuteRequest request) {
+        return run(request, ExecutionListener.NONE);
+    }
+
+    /**
+     * Same as {@link #run(ExecuteRequest)}, reporting compile and per-test
+     * progress to {@code listener} as it happens.
+     */
+    public ExecuteResponse run(ExecuteRequest request, ExecutionListener listener) {
         String containerId = null;
         Path tempDir = null;
+        PooledContainer pooled = null;
 
         long compileTimeMs = 0;
         long totalExecTimeMs = 0;
+        Long totalCpuTimeMs = null;
+        Long peakMemoryKb = null;
         int passedCount = 0;
         StringBuilder stdoutBuilder = new StringBuilder();
         StringBuilder stderrBuilder = new StringBuilder();
@@ -46,7 +115,7 @@ public class ExecutionRunner {
         String compileOutput = null;
 
         try {
-            // 1. Prepare workspace (write source file to host temp dir, will be bind-mounted)
+            // 1. Work out the source file name.
             //    For Java: extract the public class name so the filename matches (javac requirement)
             String baseName = "solution";
             String compileCmd = request.getCompileCommand();
@@ -66,24 +135,47 @@ public class ExecutionRunner {
                 }
             }
 
-            tempDir = dockerExecutor.prepareTempDirectory(
-                    request.getSourceCode(),
-                    baseName + request.getFileExtension());
+            String fileName = baseName + request.getFileExtension();
 
-            // 2. Create and start ONE container
+            // 2. Lease a warm container from the pool, or create and start ONE fresh container,
+            //    then write the source into its /workspace.
             // Compiler (cc1plus) needs >256MB even for simple files; enforce problem
             // memory limit at process level inside the container, not at Docker level.
-            int containerMemMb = Math.max(512, request.getMemoryLimitMb());
-            containerId = dockerExecutor.createAndStartContainer(
-                    request.getDockerImage(),
-                    tempDir,
-                    containerMemMb);
-
-            // 3. Compile (or skip for interpreted languages)
-            ExecutionResult compileError = dockerExecutor.compileInContainer(
-                    containerId,
-                    compileCmd,
-                    request.getCompileTimeoutMs());
+            // Parallel tests each get the problem's memory limit.
+            int containerMemMb = Math.max(512, request.getMemoryLimitMb() * effectiveParallelism(request));
+            pooled = containerPool.acquire(request.getDockerImage(), containerMemMb);
+            if (pooled != null) {
+                containerId = pooled.getContainerId();
+                tempDir = pooled.getWorkDir();
+            } else {
+                tempDir = dockerExecutor.createWorkspaceDirectory("exec-");
+                containerId = dockerExecutor.createAndStartContainer(
+                        request.getDockerImage(),
+                        tempDir,
+                        containerMemMb);
+            }
+            Workspace workspace = dockerExecutor.workspace(containerId, tempDir);
+            workspace.write(fileName, request.getSourceCode());
+
+            // 3. Compile (or skip for interpreted languages, or restore from the compile cache)
+            ExecutionResult compileError = null;
+            long compileElapsedMs = 0;
+            String cacheKey = compileCache.key(request.getSourceCode(), request.getDockerImage(), compileCmd, fileName);
+            boolean cacheHit = cacheKey != null && compileCache.restore(cacheKey, workspace);
+            if (cacheHit) {
+                log.info("Submission {}: compile cache hit, skipping compile", request.getSubmissionId());
+            } else {
+                long compileStart = System.currentTimeMillis();
+                compileError = dockerExecutor.compileInContainer(
+                        containerId,
+                        compileCmd,
+                        request.getCompileTimeoutMs());
+                compileElapsedMs = System.currentTimeMillis() - compileStart;
+                if (compileError == null && cacheKey != null) {
+                    compileCache.store(cacheKey, workspace, Set.of(fileName), compileElapsedMs);
+                }
+            }
+            notifyCompiled(listener, compileError == null, compileElapsedMs, cacheHit);
 
             if (compileError != null) {
                 // Compilation failed
@@ -107,95 +199,34 @@ public class ExecutionRunner {
 
                 log.warn("Compilation failed for submission {} ({}ms)", request.getSubmissionId(), compileTimeMs);
             } else {
-                // 4. Run each test case in the SAME container
-                finalStatus = "ACCEPTED";
+                // 4. Run the test cases in the SAME container, sequentially or fanned out
+                int parallelism = effectiveParallelism(request);
+                List<TestOutcome> outcomes = parallelism > 1
+                        ? runTestsInParallel(request, containerId, executeCmd, parallelism, listener)
+                        : runTestsSequentially(request, containerId, executeCmd, listener);
 
-                int testIndex = 0;
-                for (ExecuteRequest.TestCase testCase : request.getTestCases()) {
-                    testIndex++;
-                    log.info("Submission {}: running test {}/{} (id={})",
-                            request.getSubmissionId(), testIndex, request.getTestCases().size(), testCase.getId());
-
-                    // If a previous test case failed, mark this one as SKIPPED and continue
-                    if (!"ACCEPTED".equals(finalStatus)) {
-                        testResults.add(ExecuteResponse.TestResult.builder()
-                                .testCaseId(testCase.getId())
-                                .status("SKIPPED")
-                                .stdout("")
-                                .stderr("")
-                                .execTimeMs(0)
-                                .exitCode(-1)
-                                .build());
+                finalStatus = "ACCEPTED";
+                for (TestOutcome outcome : outcomes) {
+                    testResults.add(outcome.result());
+                    if (outcome.skipped()) {
                         continue;
                     }
-
-                    ExecutionResult result;
-                    try {
-                        result = dockerExecutor.runTestCase(
-                                containerId,
-                                executeCmd,
-                                testCase.getStdin(),
-                                request.getRunTimeoutMs(),
-                                tempDir);
-                    } catch (Exception e) {
-                        log.error("Submission {}: test {} threw", request.getSubmissionId(), testCase.getId(), e);
-                        finalStatus = "RUNTIME_ERROR";
-                        testResults.add(ExecuteResponse.TestResult.builder()
-                                .testCaseId(testCase.getId())
-                                .status("RUNTIME_ERROR")
-                                .stdout("")
-                                .stderr(e.getMessage() == null ? "execution failed" : e.getMessage())
-                                .execTimeMs(0)
-                                .exitCode(-1)
-                                .build());
-                        continue;
+                    totalExecTimeMs += outcome.result().getExecTimeMs();
+                    if (outcome.result().getCpuTimeMs() != null) {
+                        totalCpuTimeMs = (totalCpuTimeMs == null ? 0 : totalCpuTimeMs) + outcome.result().getCpuTimeMs();
                     }
-
-                    long execTime = result.getExecutionTimeMs() != null ? result.getExecutionTimeMs() : 0;
-                    int exitCode = result.getExitCode() != null ? result.getExitCode() : -1;
-                    totalExecTimeMs += execTime;
-                    stdoutBuilder.append(result.getStdout()).append("\n");
-                    stderrBuilder.append(result.getStderr()).append("\n");
-
-                    String testStatus;
-
-                    if (exitCode != 0) {
-                        // Non-zero exit. Distinguish OOM kill, TLE, and generic runtime error.
-                        if (exitCode == 137) {
-                            testStatus = "MEMORY_LIMIT_EXCEEDED";
-                            finalStatus = "MEMORY_LIMIT_EXCEEDED";
-                        } else if (exitCode == -1 && result.getStderr() != null
-                                && result.getStderr().contains("timed out")) {
-                            // executeCommandInContainer marks timeouts with exitCode=-1 + stderr "Execution timed out"
-                            testStatus = "TIME_LIMIT_EXCEEDED";
-                            finalStatus = "TIME_LIMIT_EXCEEDED";
-                        } else {
-                            testStatus = "RUNTIME_ERROR";
-                            finalStatus = "RUNTIME_ERROR";
-                        }
-                    } else if (execTime > request.getRunTimeoutMs()) {
-                        // Wall-clock TLE belt-and-braces (executeCommandInContainer should have caught this)
-                        testStatus = "TIME_LIMIT_EXCEEDED";
-                        finalStatus = "TIME_LIMIT_EXCEEDED";
-                    } else if (OutputNormalizer.areEqual(testCase.getExpectedStdout(), result.getStdout())) {
-                        testStatus = "PASSED";
+                    if (outcome.result().getPeakMemoryKb() != null) {
+                        peakMemoryKb = Math.max(peakMemoryKb == null ? 0 : peakMemoryKb, outcome.result().getPeakMemoryKb());
+                    }
+                    if (outcome.stdout() != null) {
+                        stdoutBuilder.append(outcome.stdout()).append("\n");
+                        stderrBuilder.append(outcome.stderr()).append("\n");
+                    }
+                    if (outcome.verdict() == null) {
                         passedCount++;
-                    } else {
-                        testStatus = "FAILED";
-                        finalStatus = "WRONG_ANSWER";
+                    } else if ("ACCEPTED".equals(finalStatus)) {
+                        finalStatus = outcome.verdict();
                     }
-
-                    testResults.add(ExecuteResponse.TestResult.builder()
-                            .testCaseId(testCase.getId())
-                            .status(testStatus)
-                            .stdout(result.getStdout())
-                            .stderr(result.getStderr())
-                            .execTimeMs(execTime)
-                            .exitCode(exitCode)
-                            .build());
-
-                    log.info("Submission {}: test {} -> {} ({}ms)",
-                            request.getSubmissionId(), testCase.getId(), testStatus, execTime);
                 }
             }
 
@@ -204,8 +235,12 @@ public class ExecutionRunner {
             finalStatus = "RUNTIME_ERROR";
             stderrBuilder.append(e.getMessage() == null ? "execution failed" : e.getMessage());
         } finally {
-            // 5. Cleanup — always runs
-            dockerExecutor.cleanup(containerId, tempDir);
+            // 5. Cleanup — always runs. Pooled containers are wiped and reused.
+            if (pooled != null) {
+                containerPool.release(pooled);
+            } else {
+                dockerExecutor.cleanup(containerId, tempDir);
+            }
         }
 
         log.info("╔══════════════════════════════════════════════════");
@@ -213,8 +248,9 @@ public class ExecutionRunner {
         log.info("║ Verdict     : {}", finalStatus);
         log.info("║ Test Cases  : {}/{} passed", passedCount, request.getTestCases().size());
         log.info("║ Compile     : {}ms", compileTimeMs);
-        log.info("║ Run total   : {}ms (per-test limit: {}ms)", totalExecTimeMs, request.getRunTimeoutMs());
-        log.info("║ Memory      : limit {}MB", request.getMemoryLimitMb());
+        log.info("║ Run total   : {}ms wall, {}ms cpu (per-test limit: {}ms)",
+                totalExecTimeMs, totalCpuTimeMs, request.getRunTimeoutMs());
+        log.info("║ Memory      : peak {}KB (limit {}MB)", peakMemoryKb, request.getMemoryLimitMb());
         log.info("╚══════════════════════════════════════════════════");
 
         return ExecuteResponse.builder()
@@ -223,6 +259,8 @@ public class ExecutionRunner {
                 .compileOutput(compileOutput)
                 .compileTimeMs(compileTimeMs)
                 .totalExecTimeMs(totalExecTimeMs)
+                .totalCpuTimeMs(totalCpuTimeMs)
+                .peakMemoryKb(peakMemoryKb)
                 .passedTestCases(passedCount)
                 .totalTestCases(request.getTestCases().size())
                 .stdout(stdoutBuilder.toString())
@@ -231,6 +269,260 @@ public class ExecutionRunner {
                 .build();
     }
 
+    // ───── test execution ───────────────────────────────────────────────
+
+    /** One test, first failure wins: everything after it is SKIPPED. */
+    private List<TestOutcome> runTestsSequentially(ExecuteRequest request, String containerId,
+                                                   String executeCmd, ExecutionListener listener) {
+        List<ExecuteRequest.TestCase> testCases = request.getTestCases();
+        List<TestOutcome> outcomes = new ArrayList<>(testCases.size());
+        boolean failed = false;
+
+        for (int i = 0; i < testCases.size(); i++) {
+            ExecuteRequest.TestCase testCase = testCases.get(i);
+            log.info("Submission {}: running test {}/{} (id={})",
+                    request.getSubmissionId(), i + 1, testCases.size(), testCase.getId());
+
+            // If a previous test case failed, mark this one as SKIPPED and continue
+            if (failed) {
+                outcomes.add(TestOutcome.skipped(testCase));
+                continue;
+            }
+
+            TestOutcome outcome = runTest(request, containerId, executeCmd, testCase, true);
+            failed = outcome.verdict() != null;
+            outcomes.add(outcome);
+            notifyTest(listener, i, i + 1, testCases.size(), outcome);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Fans the suite out over the agent-wide {@link #testExecutor}, at most
+     * {@code parallelism} tests of this submission in flight at once. Each exec
+     * gets its input on its own attached stdin.
+     *
+     * <p>First-failure semantics are preserved: the verdict is that of the
+     * lowest-indexed failing test, no further tests are dispatched once a
+     * failure is seen, and in-flight tests after it are cancelled and reported
+     * as SKIPPED — the same response shape the sequential path produces.
+     */
+    private List<TestOutcome> runTestsInParallel(ExecuteRequest request, String containerId,
+                                                 String executeCmd, int parallelism,
+                                                 ExecutionListener listener) {
+        List<ExecuteRequest.TestCase> testCases = request.getTestCases();
+        int total = testCases.size();
+        List<Future<TestOutcome>> futures = new ArrayList<>(Collections.nCopies(total, null));
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger completed = new AtomicInteger();
+        Semaphore window = new Semaphore(parallelism);
+
+        log.info("Submission {}: running {} tests with parallelism {}",
+                request.getSubmissionId(), total, parallelism);
+
+        try {
+            for (int i = 0; i < total && i < firstFailure.get(); i++) {
+                window.acquire();
+                if (i >= firstFailure.get()) {
+                    window.release();
+                    break;
+                }
+                final int index = i;
+                final ExecuteRequest.TestCase testCase = testCases.get(i);
+                futures.set(i, testExecutor.submit(() -> {
+                    try {
+                        if (index > firstFailure.get()) {
+                            return TestOutcome.skipped(testCase);
+                        }
+                        log.info("Submission {}: running test {}/{} (id={})",
+                                request.getSubmissionId(), index + 1, total, testCase.getId());
+                        TestOutcome outcome = runTest(request, containerId, executeCmd, testCase, false);
+                        if (outcome.verdict() != null) {
+                            firstFailure.accumulateAndGet(index, Math::min);
+                        }
+                        notifyTest(listener, index, completed.incrementAndGet(), total, outcome);
+                        return outcome;
+                    } finally {
+                        window.release();
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.stream().filter(f -> f != null).forEach(f -> f.cancel(true));
+            throw new RuntimeException("Interrupted while dispatching test cases", e);
+        }
+
+        // Collect in order. Once the first failure is known, cancel everything after it.
+        List<TestOutcome> outcomes = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            Future<TestOutcome> future = futures.get(i);
+            if (future == null || i > firstFailure.get()) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+                outcomes.add(TestOutcome.skipped(testCases.get(i)));
+                continue;
+            }
+            TestOutcome outcome;
+            try {
+                outcome = future.get();
+            } catch (CancellationException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                outcome = TestOutcome.skipped(testCases.get(i));
+            } catch (ExecutionException e) {
+                outcome = TestOutcome.error(testCases.get(i), e.getCause());
+            }
+            if (outcome.verdict() != null) {
+                firstFailure.accumulateAndGet(i, Math::min);
+            }
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    /** Run a single test case and classify it. A null verdict means PASSED. */
+    private TestOutcome runTest(ExecuteRequest request, String containerId, String executeCmd,
+                                ExecuteRequest.TestCase testCase, boolean exclusive) {
+        ExecutionResult result;
+        OutputComparator comparator = new OutputComparator(testCase.getExpectedStdout(), outputLimitSlackBytes);
+        try {
+            result = dockerExecutor.runTestCase(
+                    containerId,
+                    executeCmd,
+                    testCase.getStdin(),
+                    request.getRunTimeoutMs(),
+                    comparator,
+                    exclusive);
+        } catch (Exception e) {
+            log.error("Submission {}: test {} threw", request.getSubmissionId(), testCase.getId(), e);
+            return TestOutcome.error(testCase, e);
+        }
+
+        long execTime = result.getExecutionTimeMs() != null ? result.getExecutionTimeMs() : 0;
+        int exitCode = result.getExitCode() != null ? result.getExitCode() : -1;
+        Long cpuTime = result.getCpuTimeMs();
+        Long peakMemoryKb = result.getPeakMemoryKb();
+
+        // Judge on CPU time when the supervisor measured it; wall clock otherwise (images without perl).
+        long judgedTime = cpuTime != null ? cpuTime : execTime;
+        boolean overMemory = peakMemoryKb != null && peakMemoryKb > request.getMemoryLimitMb() * 1024L;
+
+        String testStatus;
+        String verdict;
+
+        if (comparator.isLimitExceeded()) {
+            // Detached mid-run, so there is no exit code to look at.
+            testStatus = "OUTPUT_LIMIT_EXCEEDED";
+            verdict = "OUTPUT_LIMIT_EXCEEDED";
+        } else if (exitCode != 0) {
+            // Non-zero exit. Distinguish OOM kill, TLE, and generic runtime error.
+            if (exitCode == 137 || overMemory) {
+                testStatus = "MEMORY_LIMIT_EXCEEDED";
+                verdict = "MEMORY_LIMIT_EXCEEDED";
+            } else if (exitCode == -1 && result.getStderr() != null
+                    && result.getStderr().contains("timed out")) {
+                // executeCommandInContainer marks timeouts with exitCode=-1 + stderr "Execution timed out"
+                testStatus = "TIME_LIMIT_EXCEEDED";
+                verdict = "TIME_LIMIT_EXCEEDED";
+            } else {
+                testStatus = "RUNTIME_ERROR";
+                verdict = "RUNTIME_ERROR";
+            }
+        } else if (judgedTime > request.getRunTimeoutMs()) {
+            // Used more CPU than allowed (the exec only hard-stops at a multiple of the limit)
+            testStatus = "TIME_LIMIT_EXCEEDED";
+            verdict = "TIME_LIMIT_EXCEEDED";
+        } else if (overMemory) {
+            // The container cap is above the problem limit; the per-test peak RSS is what counts
+            testStatus = "MEMORY_LIMIT_EXCEEDED";
+            verdict = "MEMORY_LIMIT_EXCEEDED";
+        } else if (comparator.verdict() == OutputComparator.Verdict.MATCH) {
+            testStatus = "PASSED";
+            verdict = null;
+        } else {
+            testStatus = "FAILED";
+            verdict = "WRONG_ANSWER";
+        }
+
+        log.info("Submission {}: test {} -> {} ({}ms wall, {}ms cpu, {}KB peak)",
+                request.getSubmissionId(), testCase.getId(), testStatus, execTime, cpuTime, peakMemoryKb);
+
+        return new TestOutcome(
+                ExecuteResponse.TestResult.builder()
+                        .testCaseId(testCase.getId())
+                        .status(testStatus)
+                        .stdout(result.getStdout())
+                        .stderr(result.getStderr())
+                        .execTimeMs(execTime)
+                        .exitCode(exitCode)
+                        .cpuTimeMs(cpuTime)
+                        .peakMemoryKb(peakMemoryKb)
+                        .build(),
+                verdict,
+                result.getStdout(),
+                result.getStderr());
+    }
+
+    private void notifyCompiled(ExecutionListener listener, boolean success, long compileTimeMs, boolean cached) {
+        try {
+            listener.onCompiled(success, compileTimeMs, cached);
+        } catch (Exception e) {
+            log.debug("Execution listener failed on compile event: {}", e.getMessage());
+        }
+    }
+
+    private void notifyTest(ExecutionListener listener, int index, int completed, int total, TestOutcome outcome) {
+        if (outcome.skipped()) {
+            return;
+        }
+        try {
+            listener.onTestFinished(index, completed, total, outcome.result());
+        } catch (Exception e) {
+            log.debug("Execution listener failed on test event: {}", e.getMessage());
+        }
+    }
+
+    private int effectiveParallelism(ExecuteRequest request) {
+        return Math.max(1, Math.min(testParallelism, request.getTestCases().size()));
+    }
+
+    /**
+     * Per-test result plus the raw output that feeds the aggregated
+     * stdout/stderr. {@code verdict} is null when the test passed.
+     */
+    private record TestOutcome(ExecuteResponse.TestResult result, String verdict,
+                               String stdout, String stderr) {
+
+        boolean skipped() {
+            return "SKIPPED".equals(result.getStatus());
+        }
+
+        static TestOutcome skipped(ExecuteRequest.TestCase testCase) {
+            return new TestOutcome(ExecuteResponse.TestResult.builder()
+                    .testCaseId(testCase.getId())
+                    .status("SKIPPED")
+                    .stdout("")
+                    .stderr("")
+                    .execTimeMs(0)
+                    .exitCode(-1)
+                    .build(), null, null, null);
+        }
+
+        static TestOutcome error(ExecuteRequest.TestCase testCase, Throwable e) {
+            return new TestOutcome(ExecuteResponse.TestResult.builder()
+                    .testCaseId(testCase.getId())
+                    .status("RUNTIME_ERROR")
+                    .stdout("")
+                    .stderr(e.getMessage() == null ? "execution failed" : e.getMessage())
+                    .execTimeMs(0)
+                    .exitCode(-1)
+                    .build(), "RUNTIME_ERROR", null, null);
+        }
+    }
+
     private static final Pattern JAVA_PUBLIC_CLASS = Pattern.compile(
             "public\\s+class\\s+(\\w+)");
 
@@ -0,0 +1,47 @@
+package com.codex.agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agent-wide cap on concurrently running executions, shared by the
+ * synchronous endpoints and the job workers so a small EC2 box doesn't OOM
+ * under burst load. Tunable via {@code executor.agent.max-concurrent}.
+ */
+@Component
+@Slf4j
+public class ExecutionSlots {
+
+    private final int max;
+    private final Semaphore semaphore;
+
+    public ExecutionSlots(@Value("${executor.agent.max-concurrent:1}") int maxConcurrent) {
+        this.max = Math.max(1, maxConcurrent);
+        this.semaphore = new Semaphore(max, true);
+        log.info("Executor agent concurrency limiter initialized with {} permits", max);
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return semaphore.tryAcquire(timeout, unit);
+    }
+
+    public void acquire() throws InterruptedException {
+        semaphore.acquire();
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int max() {
+        return max;
+    }
+
+    public int available() {
+        return semaphore.availablePermits();
+    }
+}
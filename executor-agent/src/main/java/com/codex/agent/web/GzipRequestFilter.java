@@ -0,0 +1,162 @@
+package com.codex.agent.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts {@code Content-Encoding: gzip} request bodies. The backend gzips
+ * large {@code ExecuteRequest}s (test cases compress 5-20x); Tomcat only
+ * compresses responses, so requests are inflated here before Jackson sees
+ * them. The inflated size is capped at {@code executor.agent.max-request-bytes}
+ * so a small compressed body cannot expand without bound.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    @Value("${executor.agent.max-request-bytes:67108864}")
+    private long maxRequestBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        GunzippedRequest gunzipped;
+        try {
+            gunzipped = new GunzippedRequest(request, maxRequestBytes);
+        } catch (IOException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "malformed gzip body");
+            return;
+        }
+        chain.doFilter(gunzipped, response);
+    }
+
+    private static final class GunzippedRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream body;
+
+        private GunzippedRequest(HttpServletRequest request, long limit) throws IOException {
+            super(request);
+            this.body = new BoundedServletInputStream(new GZIPInputStream(request.getInputStream(), 8192), limit);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+    }
+
+    private static final class BoundedServletInputStream extends ServletInputStream {
+        private final InputStream in;
+        private final long limit;
+        private long read;
+        private boolean finished;
+
+        private BoundedServletInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = in.read(buf, off, len);
+            if (n < 0) {
+                finished = true;
+            } else {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > limit) {
+                throw new IOException("inflated request body exceeds " + limit + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("async read not supported for gzip bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.codex.agent.bench;
+
+import com.codex.agent.execution.OutputComparator;
+import com.codex.agent.execution.OutputNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Old path vs. new path for judging one test's stdout:
+ * <ul>
+ *   <li>{@code normalizer} — buffer every exec frame in a ByteArrayOutputStream,
+ *   decode to a String, then {@link OutputNormalizer#areEqual} (split + regex on
+ *   both sides);</li>
+ *   <li>{@code comparator} — push the same frames through {@link OutputComparator}.</li>
+ * </ul>
+ * Compare {@code gc.alloc.rate.norm} (bytes allocated per call) between the two.
+ *
+ * <p>Run from {@code executor-agent/}:
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.codex.agent.bench.OutputComparatorBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputComparatorBenchmark {
+
+    /** Docker delivers exec output in frames of at most this size. */
+    private static final int FRAME_BYTES = 8192;
+
+    @Param({"1000", "100000"})
+    private int lines;
+
+    private String expected;
+    private byte[] actual;
+
+    @Setup
+    public void setUp() {
+        StringBuilder exp = new StringBuilder();
+        StringBuilder act = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            String line = i + " " + (i * 31L % 1_000_003) + " " + (i % 2 == 0 ? "YES" : "NO");
+            exp.append(line).append('\n');
+            act.append(line).append(" \r\n");    // typical: trailing space + CRLF
+        }
+        expected = exp.toString();
+        actual = act.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean normalizer() {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        for (int off = 0; off < actual.length; off += FRAME_BYTES) {
+            stdout.write(actual, off, Math.min(FRAME_BYTES, actual.length - off));
+        }
+        return OutputNormalizer.areEqual(expected, stdout.toString(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public boolean comparator() {
+        OutputComparator comparator = new OutputComparator(expected, 1 << 20);
+        for (int off = 0; off < actual.length; off += FRAME_BYTES) {
+            comparator.write(actual, off, Math.min(FRAME_BYTES, actual.length - off));
+        }
+        return comparator.verdict() == OutputComparator.Verdict.MATCH;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(OutputComparatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
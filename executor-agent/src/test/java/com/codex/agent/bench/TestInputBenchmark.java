@@ -0,0 +1,125 @@
+package com.codex.agent.bench;
+
+import com.codex.agent.execution.DockerExecutor;
+import com.codex.agent.execution.ExecutionResult;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-test overhead of getting stdin into a test exec, against a real Docker
+ * daemon (needs {@code DOCKER_HOST} or {@code /var/run/docker.sock}):
+ * <ul>
+ *   <li>{@code fileRedirect} — the previous path: write {@code input.txt} into
+ *   the bind-mounted workspace, then run {@code <cmd> < /workspace/input.txt};</li>
+ *   <li>{@code attachedStdin} — {@link DockerExecutor#runTestCase} streaming the
+ *   input over the exec's attached stdin.</li>
+ * </ul>
+ * The command only drains its stdin, so the score is the harness overhead per
+ * test. Both go through the same rusage supervisor.
+ *
+ * <p>Run from {@code executor-agent/} (any image with {@code sh}; perl-base
+ * gives the supervised path the judge uses):
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath com.codex.agent.bench.TestInputBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TestInputBenchmark {
+
+    @Param({"debian:bookworm-slim"})
+    private String image;
+
+    @Param({"64", "65536", "4194304"})
+    private int inputBytes;
+
+    private DockerExecutor dockerExecutor;
+    private Path workDir;
+    private String containerId;
+    private String input;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        DockerClient dockerClient = DockerClientImpl.getInstance(config, new ZerodepDockerHttpClient.Builder()
+                .dockerHost(config.getDockerHost())
+                .build());
+
+        dockerExecutor = new DockerExecutor(dockerClient);
+        ReflectionTestUtils.setField(dockerExecutor, "tempBaseDir", System.getProperty("java.io.tmpdir") + "/codex-bench");
+        ReflectionTestUtils.setField(dockerExecutor, "captureBytes", 65536);
+        ReflectionTestUtils.setField(dockerExecutor, "wallTimeFactor", 2);
+        ReflectionTestUtils.setField(dockerExecutor, "testParallelism", 1);
+        ReflectionTestUtils.invokeMethod(dockerExecutor, "loadSeccompProfile");
+
+        workDir = dockerExecutor.createTempDirectory("bench-");
+        containerId = dockerExecutor.createAndStartContainer(image, workDir, 512, List.of("sleep", "3600"), Map.of());
+
+        StringBuilder sb = new StringBuilder(inputBytes);
+        for (int i = 0; sb.length() < inputBytes; i++) {
+            sb.append(i).append(i % 8 == 7 ? '\n' : ' ');
+        }
+        sb.setLength(inputBytes - 1);
+        input = sb.append('\n').toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dockerExecutor.cleanup(containerId, workDir);
+    }
+
+    @Benchmark
+    public ExecutionResult fileRedirect() throws Exception {
+        Files.writeString(workDir.resolve("input.txt"), input);
+        return check(dockerExecutor.runTestCase(containerId, "cat > /dev/null < /workspace/input.txt", null, 10_000));
+    }
+
+    @Benchmark
+    public ExecutionResult attachedStdin() throws Exception {
+        return check(dockerExecutor.runTestCase(containerId, "cat > /dev/null", input, 10_000));
+    }
+
+    private static ExecutionResult check(ExecutionResult result) {
+        if (result.getExitCode() == null || result.getExitCode() != 0) {
+            throw new IllegalStateException("test exec failed: " + result.getStderr());
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(TestInputBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -5,8 +5,8 @@ import com.codex.platform.execution.client.ExecutorAgentClient;
 import com.codex.platform.execution.client.dto.ExecuteRequest;
 import com.codex.platform.execution.client.dto.ExecuteResponse;
 import com.codex.platform.execution.entity.Language;
-import com.codex.platform.execution.repository.LanguageRepository;
 import com.codex.platform.execution.service.DockerExecutor;
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.execution.dto.ExecutionResult;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -41,17 +41,17 @@ public class SolutionVerifier {
 
     private final ExecutorAgentClient executorAgentClient;
     private final DockerExecutor dockerExecutor;
-    private final LanguageRepository languageRepository;
+    private final JudgeBundleCache judgeBundleCache;
 
     @Value("${execution.mode:local}")
     private String executionMode;
 
     public SolutionVerifier(ExecutorAgentClient executorAgentClient,
                             DockerExecutor dockerExecutor,
-                            LanguageRepository languageRepository) {
+                            JudgeBundleCache judgeBundleCache) {
         this.executorAgentClient = executorAgentClient;
         this.dockerExecutor = dockerExecutor;
-        this.languageRepository = languageRepository;
+        this.judgeBundleCache = judgeBundleCache;
     }
 
     /** Outcome of a verification run. */
@@ -196,7 +196,7 @@ public class SolutionVerifier {
 
     private Language resolveLanguage(String languageName) {
         if (languageName != null && !languageName.isBlank()) {
-            Optional<Language> exact = languageRepository.findByName(languageName.trim());
+            Optional<Language> exact = judgeBundleCache.languageByName(languageName.trim());
             if (exact.isPresent()) {
                 return exact.get();
             }
@@ -208,12 +208,12 @@ public class SolutionVerifier {
                 case "java" -> "Java";
                 default -> languageName.trim();
             };
-            Optional<Language> aliased = languageRepository.findByName(normalized);
+            Optional<Language> aliased = judgeBundleCache.languageByName(normalized);
             if (aliased.isPresent()) {
                 return aliased.get();
             }
         }
         // Last resort: Python is the most forgiving for AI-written reference code.
-        return languageRepository.findByName("Python").orElse(null);
+        return judgeBundleCache.languageByName("Python").orElse(null);
     }
 }
@@ -1,6 +1,7 @@
 package com.codex.platform.config;
 
 import com.codex.platform.common.enums.ProblemDifficulty;
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.problem.entity.Problem;
 import com.codex.platform.problem.entity.ProblemExample;
 import com.codex.platform.problem.entity.TestCase;
@@ -34,6 +35,7 @@ public class CuratedProblemCatalogInitializer {
     private final ProblemExampleRepository exampleRepository;
     private final TestCaseRepository testCaseRepository;
     private final ObjectMapper objectMapper;
+    private final JudgeBundleCache judgeBundleCache;
 
     @EventListener(ApplicationReadyEvent.class)
     @Transactional
@@ -43,6 +45,8 @@ public class CuratedProblemCatalogInitializer {
             upsert(seed);
             upserted++;
         }
+        // Other nodes may hold bundles for problems whose test cases were just rewritten
+        judgeBundleCache.invalidateAll();
         log.info("Curated problem catalog synced: {} problem(s)", upserted);
     }
 
@@ -0,0 +1,222 @@
+package com.codex.platform.execution.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.client.RestClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One executor agent as seen by {@link AgentRouter}: its HTTP clients, the
+ * last {@code /v1/healthz} concurrency snapshot, the requests this process
+ * has in flight against it, and a consecutive-failure circuit breaker.
+ *
+ * <p>Breaker: {@code failureThreshold} failures in a row open it for
+ * {@code openMs}; after that one trial request is let through (half-open)
+ * and its outcome closes or re-opens the breaker. A failed health poll
+ * ejects the agent from routing until a poll succeeds again.
+ */
+class AgentEndpoint {
+
+    enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    final String baseUrl;
+    final RestClient restClient;
+    final RestClient healthClient;
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    // Last health snapshot; max = 0 until the first successful poll.
+    private volatile boolean healthy = true;
+    private volatile int reportedMax;
+    private volatile int reportedAvailable;
+    private volatile int reportedQueued;
+    private volatile int inFlightAtPoll;
+    private volatile long lastPollAtMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private BreakerState breakerState = BreakerState.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilMs;
+    private boolean trialInFlight;
+
+    /** Set once the agent answered 404 on the streaming endpoint (older agent build). */
+    volatile boolean streamingUnsupported;
+
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final Counter ejections;
+
+    AgentEndpoint(String baseUrl, RestClient restClient, RestClient healthClient,
+                  int failureThreshold, long openMs, MeterRegistry meterRegistry) {
+        this.baseUrl = baseUrl;
+        this.restClient = restClient;
+        this.healthClient = healthClient;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+
+        this.successTimer = Timer.builder("codex.executor.agent.requests")
+                .description("Executor agent calls by agent and outcome")
+                .tag("agent", baseUrl).tag("outcome", "success")
+                .register(meterRegistry);
+        this.errorTimer = Timer.builder("codex.executor.agent.requests")
+                .description("Executor agent calls by agent and outcome")
+                .tag("agent", baseUrl).tag("outcome", "error")
+                .register(meterRegistry);
+        this.ejections = Counter.builder("codex.executor.agent.ejections")
+                .description("Times the agent was taken out of routing (breaker opened or health poll failed)")
+                .tag("agent", baseUrl)
+                .register(meterRegistry);
+        Gauge.builder("codex.executor.agent.free.slots", this, AgentEndpoint::estimatedFreeSlots)
+                .description("Estimated free execution slots on the agent")
+                .tag("agent", baseUrl)
+                .register(meterRegistry);
+        Gauge.builder("codex.executor.agent.in.flight", inFlight, AtomicInteger::get)
+                .description("Requests this instance has in flight against the agent")
+                .tag("agent", baseUrl)
+                .register(meterRegistry);
+        Gauge.builder("codex.executor.agent.breaker.open", this, e -> e.breakerState() == BreakerState.CLOSED ? 0 : 1)
+                .description("1 while the agent's circuit breaker is open or half-open")
+                .tag("agent", baseUrl)
+                .register(meterRegistry);
+    }
+
+    // ───── health ───────────────────────────────────────────────────────
+
+    void recordHealth(int max, int available, int queued) {
+        healthy = true;
+        reportedMax = max;
+        reportedAvailable = available;
+        reportedQueued = queued;
+        inFlightAtPoll = inFlight.get();
+        lastPollAtMs = System.currentTimeMillis();
+    }
+
+    void recordHealthFailure() {
+        if (healthy) {
+            healthy = false;
+            ejections.increment();
+        }
+        lastPollAtMs = System.currentTimeMillis();
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Free slots per the last poll, corrected for what this instance has
+     * dispatched or finished since then. Queued jobs count as used slots.
+     * Before the first poll every agent looks like it has one free slot.
+     */
+    double estimatedFreeSlots() {
+        if (reportedMax == 0) {
+            return 1 - inFlight.get();
+        }
+        int dispatchedSincePoll = inFlight.get() - inFlightAtPoll;
+        return reportedAvailable - dispatchedSincePoll - reportedQueued;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Concurrent executions the agent advertised at the last poll; 0 before the first one. */
+    int reportedMax() {
+        return reportedMax;
+    }
+
+    // ───── breaker ──────────────────────────────────────────────────────
+
+    /** Whether a request may be routed here now. Claims the half-open trial slot if it grants one. */
+    synchronized boolean tryAdmit() {
+        if (breakerState == BreakerState.OPEN) {
+            if (System.currentTimeMillis() < openUntilMs) {
+                return false;
+            }
+            breakerState = BreakerState.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (breakerState == BreakerState.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    /** Cheap check for selection; {@link #tryAdmit()} makes the binding decision. */
+    synchronized boolean isRoutable() {
+        if (!healthy) return false;
+        return switch (breakerState) {
+            case CLOSED -> true;
+            case OPEN -> System.currentTimeMillis() >= openUntilMs;
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    synchronized BreakerState breakerState() {
+        return breakerState;
+    }
+
+    long begin() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    synchronized void recordSuccess(long startedNanos) {
+        inFlight.decrementAndGet();
+        successTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        consecutiveFailures = 0;
+        breakerState = BreakerState.CLOSED;
+        trialInFlight = false;
+    }
+
+    /** Returns true if this failure opened the breaker. */
+    synchronized boolean recordFailure(long startedNanos) {
+        inFlight.decrementAndGet();
+        errorTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        consecutiveFailures++;
+        if (breakerState == BreakerState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            boolean opened = breakerState != BreakerState.OPEN;
+            breakerState = BreakerState.OPEN;
+            openUntilMs = System.currentTimeMillis() + openMs;
+            trialInFlight = false;
+            if (opened) {
+                ejections.increment();
+            }
+            return opened;
+        }
+        return false;
+    }
+
+    /** A request that ended in a client-side error (4xx): not the agent's fault, just release the slot. */
+    synchronized void recordNeutral() {
+        inFlight.decrementAndGet();
+        trialInFlight = false;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("baseUrl", baseUrl);
+        stats.put("healthy", healthy);
+        stats.put("breaker", breakerState().name());
+        stats.put("max", reportedMax);
+        stats.put("available", reportedAvailable);
+        stats.put("queued", reportedQueued);
+        stats.put("inFlight", inFlight.get());
+        stats.put("estimatedFree", estimatedFreeSlots());
+        stats.put("lastPollAgeMs", lastPollAtMs == 0 ? -1 : System.currentTimeMillis() - lastPollAtMs);
+        stats.put("meanLatencyMs", successTimer.count() == 0 ? 0 : successTimer.mean(TimeUnit.MILLISECONDS));
+        stats.put("errors", errorTimer.count());
+        return stats;
+    }
+}
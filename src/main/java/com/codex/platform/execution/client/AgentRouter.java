@@ -0,0 +1,267 @@
+package com.codex.platform.execution.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks which executor agent a request goes to.
+ *
+ * <p>Agents come from {@code executor.agent.base-urls} (comma-separated),
+ * falling back to the single {@code executor.agent.base-url}. A background
+ * thread polls every agent's public {@code /v1/healthz} every
+ * {@code executor.agent.health-poll-ms} for its concurrency block
+ * ({@code max}/{@code available}) and job queue depth.
+ *
+ * <p>{@link #pick} returns the routable agent with the most estimated free
+ * slots (ties: fewest requests in flight from this instance, then config
+ * order). An agent is routable when its last health poll succeeded and its
+ * circuit breaker admits traffic — see {@link AgentEndpoint}. If every agent
+ * is ejected by health polling, health is ignored rather than failing all
+ * traffic (the breaker still applies).
+ *
+ * <p>All agents share one JDK {@link HttpClient}: pooled keep-alive
+ * connections, HTTP/2 where the agent offers it (h2 over TLS, h2c upgrade
+ * over plain HTTP), and gzip via {@link GzipInterceptor}. Its small daemon
+ * executor also runs the completion stages of
+ * {@link ExecutorAgentClient#executeAsync}.
+ */
+@Component
+@Slf4j
+public class AgentRouter {
+
+    private final List<String> baseUrls;
+    private final String token;
+    private final int timeoutMs;
+    private final long healthPollMs;
+    private final int failureThreshold;
+    private final long breakerOpenMs;
+    private final int gzipMinBytes;
+    private final int httpThreads;
+    private final MeterRegistry meterRegistry;
+
+    private final List<AgentEndpoint> endpoints = new ArrayList<>();
+    private ScheduledExecutorService poller;
+    private ExecutorService httpExecutor;
+    private HttpClient httpClient;
+
+    public AgentRouter(
+            @Value("${executor.agent.base-urls:}") String baseUrls,
+            @Value("${executor.agent.base-url:}") String baseUrl,
+            @Value("${executor.agent.token:}") String token,
+            @Value("${executor.agent.timeout-ms:90000}") int timeoutMs,
+            @Value("${executor.agent.health-poll-ms:2000}") long healthPollMs,
+            @Value("${executor.agent.breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${executor.agent.breaker.open-ms:30000}") long breakerOpenMs,
+            @Value("${executor.agent.gzip-min-bytes:8192}") int gzipMinBytes,
+            @Value("${executor.agent.http-threads:4}") int httpThreads,
+            MeterRegistry meterRegistry) {
+        this.baseUrls = parseUrls(baseUrls.isBlank() ? baseUrl : baseUrls);
+        this.token = token;
+        this.timeoutMs = timeoutMs;
+        this.healthPollMs = healthPollMs;
+        this.failureThreshold = failureThreshold;
+        this.breakerOpenMs = breakerOpenMs;
+        this.gzipMinBytes = gzipMinBytes;
+        this.httpThreads = Math.max(1, httpThreads);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (baseUrls.isEmpty()) {
+            log.info("AgentRouter: no executor.agent.base-url(s) set; remote-mode calls will fail until configured");
+            return;
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        httpExecutor = Executors.newFixedThreadPool(httpThreads, r -> {
+            Thread t = new Thread(r, "agent-http-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpExecutor)
+                .build();
+
+        for (String url : baseUrls) {
+            endpoints.add(new AgentEndpoint(url, restClient(url, timeoutMs, true), restClient(url, 2_000, false),
+                    failureThreshold, breakerOpenMs, meterRegistry));
+        }
+
+        if (healthPollMs > 0) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "agent-health-poller");
+                t.setDaemon(true);
+                return t;
+            });
+            poller.scheduleWithFixedDelay(this::pollAll, 0, healthPollMs, TimeUnit.MILLISECONDS);
+        }
+
+        log.info("AgentRouter initialized: agents={}, timeoutMs={}, healthPollMs={}, breaker={} failures/{}ms",
+                baseUrls, timeoutMs, healthPollMs, failureThreshold, breakerOpenMs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+        }
+    }
+
+    boolean isConfigured() {
+        return !endpoints.isEmpty();
+    }
+
+    /**
+     * Best agent for the next request, skipping {@code exclude} (agents that
+     * already failed this request) when any other is available. The returned
+     * agent has admitted the request; the caller must report the outcome.
+     * Returns null when every agent's breaker is open.
+     */
+    AgentEndpoint pick(Set<AgentEndpoint> exclude) {
+        AgentEndpoint chosen = pickFrom(candidates(exclude, true));
+        if (chosen == null) {
+            chosen = pickFrom(candidates(exclude, false));      // panic: ignore health ejection
+        }
+        if (chosen == null && !exclude.isEmpty()) {
+            chosen = pick(Set.of());                            // nothing else left: allow a retry on the same agent
+        }
+        return chosen;
+    }
+
+    List<AgentEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    HttpClient httpClient() {
+        return httpClient;
+    }
+
+    Executor httpExecutor() {
+        return httpExecutor;
+    }
+
+    String token() {
+        return token;
+    }
+
+    int timeoutMs() {
+        return timeoutMs;
+    }
+
+    GzipInterceptor gzip() {
+        return new GzipInterceptor(gzipMinBytes);
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private List<AgentEndpoint> candidates(Set<AgentEndpoint> exclude, boolean requireHealthy) {
+        List<AgentEndpoint> candidates = new ArrayList<>();
+        for (AgentEndpoint endpoint : endpoints) {
+            if (exclude.contains(endpoint)) continue;
+            if (requireHealthy && !endpoint.isRoutable()) continue;
+            candidates.add(endpoint);
+        }
+        candidates.sort(Comparator.comparingDouble(AgentEndpoint::estimatedFreeSlots).reversed()
+                .thenComparingInt(AgentEndpoint::inFlight));
+        return candidates;
+    }
+
+    private AgentEndpoint pickFrom(List<AgentEndpoint> candidates) {
+        for (AgentEndpoint candidate : candidates) {
+            if (candidate.tryAdmit()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void pollAll() {
+        for (AgentEndpoint endpoint : endpoints) {
+            try {
+                JsonNode health = endpoint.healthClient.get()
+                        .uri("/v1/healthz")
+                        .retrieve()
+                        .body(JsonNode.class);
+                JsonNode concurrency = health == null ? null : health.path("concurrency");
+                if (concurrency == null || !concurrency.has("max")) {
+                    endpoint.recordHealthFailure();
+                    continue;
+                }
+                if ("DEGRADED".equals(health.path("status").asText())) {
+                    // Docker daemon unreachable on that host: anything routed there fails.
+                    if (endpoint.isHealthy()) {
+                        log.warn("Executor agent {} reports DEGRADED, ejecting", endpoint.baseUrl);
+                    }
+                    endpoint.recordHealthFailure();
+                    continue;
+                }
+                if (!endpoint.isHealthy()) {
+                    log.info("Executor agent {} is healthy again", endpoint.baseUrl);
+                }
+                endpoint.recordHealth(concurrency.path("max").asInt(),
+                        concurrency.path("available").asInt(),
+                        health.path("jobs").path("queued").asInt(0));
+            } catch (Exception e) {
+                if (endpoint.isHealthy()) {
+                    log.warn("Executor agent {} health poll failed ({}), ejecting", endpoint.baseUrl, e.getMessage());
+                }
+                endpoint.recordHealthFailure();
+            }
+        }
+    }
+
+    private RestClient restClient(String url, int readTimeoutMs, boolean authenticated) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl(url)
+                .requestFactory(factory)
+                .requestInterceptor(gzip());
+        if (authenticated) {
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .defaultHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+        return builder.build();
+    }
+
+    private static List<String> parseUrls(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return List.of();
+        }
+        return List.copyOf(new LinkedHashSet<>(Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> s.endsWith("/") ? s.substring(0, s.length() - 1) : s)
+                .toList()));
+    }
+}
@@ -2,17 +2,40 @@ package com.codex.platform.execution.client;
 
 import com.codex.platform.execution.client.dto.ExecuteRequest;
 import com.codex.platform.execution.client.dto.ExecuteResponse;
-import jakarta.annotation.PostConstruct;
+import com.codex.platform.execution.client.dto.ExecutionEvent;
+import com.codex.platform.execution.client.dto.JobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * HTTP client for the EC2-hosted executor agent.
@@ -27,95 +50,614 @@ import java.time.Duration;
  * "executor unavailable" stderr so the user gets a useful error rather than
  * a silent hang.
  *
- * <p><b>Retry policy</b> — single retry on connection failure / read timeout.
- * The agent's idempotency cache (keyed on {@code submissionId}) makes the
- * retry safe: if the first call actually executed but we never saw the
- * response, the second call returns the cached result instead of re-running.
+ * <p><b>Routing</b> — every call goes to the agent {@link AgentRouter} picks:
+ * the one with the most free slots whose circuit breaker is closed. Outcomes
+ * are reported back to that agent's breaker and latency/error metrics.
+ *
+ * <p><b>Retry policy</b> — single retry on connection failure / read timeout /
+ * 502-504. A refused connection or a 503 (saturated) retries on another agent
+ * if there is one. A read timeout or dropped stream retries on the SAME agent:
+ * its idempotency cache (keyed on {@code submissionId}) makes that safe — if
+ * the first call actually executed but we never saw the response, the second
+ * call returns the cached result instead of re-running.
+ *
+ * <p><b>Streaming</b> — {@link #executeStreaming} calls {@code /v1/execute/stream}
+ * and hands compile / per-test events to a callback as the agent emits them.
+ * Same retry policy; against an agent without the endpoint (404) it falls back
+ * to {@link #execute} against that agent for the rest of the process lifetime.
+ *
+ * <p><b>Jobs</b> — {@link #executeAsJob} enqueues on {@code POST /v1/jobs} (202,
+ * returns at once) and polls {@code GET /v1/jobs/{id}} on the agent that took
+ * the job, with backoff, so a saturated agent queues the submission instead of
+ * answering 503. A job lost to an agent restart (404) is resubmitted once.
+ *
+ * <p><b>Test data</b> — large test-case stdin / expected output is sent by
+ * SHA-256 once the agent holds it ({@link TestDataSync}); an agent that has
+ * evicted a blob answers 409 and the same agent gets the request again with
+ * the data inline. That resend is not counted as the retry.
  */
 @Component
 @Slf4j
 public class ExecutorAgentClient {
 
-    private final String baseUrl;
-    private final String token;
-    private final int timeoutMs;
+    private static final int MAX_CONSECUTIVE_POLL_ERRORS = 3;
 
-    private RestClient restClient;
+    private final AgentRouter router;
+    private final long jobMaxWaitMs;
+    private final ObjectMapper objectMapper;
+    private final TestDataSync testData;
 
     public ExecutorAgentClient(
-            @Value("${executor.agent.base-url:}") String baseUrl,
-            @Value("${executor.agent.token:}") String token,
-            @Value("${executor.agent.timeout-ms:90000}") int timeoutMs) {
-        this.baseUrl = baseUrl;
-        this.token = token;
-        this.timeoutMs = timeoutMs;
-    }
-
-    @PostConstruct
-    void init() {
-        if (baseUrl == null || baseUrl.isBlank()) {
-            log.info("ExecutorAgentClient: executor.agent.base-url not set; remote-mode calls will fail until configured");
-            return;
+            AgentRouter router,
+            @Value("${executor.agent.job-max-wait-ms:600000}") long jobMaxWaitMs,
+            @Value("${executor.agent.test-data.min-bytes:2048}") int testDataMinBytes,
+            @Value("${executor.agent.test-data.known-per-agent:4096}") int testDataKnownPerAgent,
+            ObjectMapper objectMapper) {
+        this.router = router;
+        this.jobMaxWaitMs = jobMaxWaitMs;
+        this.objectMapper = objectMapper;
+        this.testData = new TestDataSync(testDataMinBytes, testDataKnownPerAgent);
+    }
+
+    /** Submit a job to the agent. Retries once on transient failure. */
+    public ExecuteResponse execute(ExecuteRequest request) {
+        return withRetry(agent -> withTestData(agent, request, wire -> doExecute(agent, wire)));
+    }
+
+    /**
+     * Submit a job over the streaming endpoint. {@code onProgress} receives the
+     * COMPILED and TEST events on the calling thread as they arrive; the final
+     * RESULT is returned. Retries once on transient failure, like {@link #execute}.
+     */
+    public ExecuteResponse executeStreaming(ExecuteRequest request, Consumer<ExecutionEvent> onProgress) {
+        return withRetry(agent -> withTestData(agent, request, wire -> agent.streamingUnsupported
+                ? doExecute(agent, wire)
+                : doExecuteStream(agent, wire, onProgress)));
+    }
+
+    /**
+     * Non-blocking {@link #execute} / {@link #executeStreaming}: returns as soon
+     * as the request is on the wire; the future completes on an
+     * {@code agent-http-*} thread. With {@code onProgress} set the streaming
+     * endpoint is used and events are delivered line by line as they arrive,
+     * without a thread parked on the socket. Same routing and retry policy;
+     * failures complete the future with {@link ExecutorAgentException}.
+     *
+     * <p>A test data upload the agent still needs ({@link TestDataSync}) is
+     * made synchronously before the request goes out — on the calling thread,
+     * or on an {@code agent-http-*} thread for the retry.
+     */
+    public CompletableFuture<ExecuteResponse> executeAsync(ExecuteRequest request, Consumer<ExecutionEvent> onProgress) {
+        AgentEndpoint agent;
+        try {
+            if (!router.isConfigured()) {
+                throw new ExecutorAgentException("ExecutorAgentClient not configured (executor.agent.base-url empty)");
+            }
+            agent = route(Set.of());
+        } catch (ExecutorAgentException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout((int) Duration.ofSeconds(5).toMillis());
-        factory.setReadTimeout(timeoutMs);
+        return attemptAsync(agent, request, onProgress).exceptionallyCompose(error -> {
+            Throwable first = unwrap(error);
+            if (first instanceof ExecutorAgentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            AgentEndpoint next;
+            try {
+                next = retryTarget(agent, first);
+            } catch (ExecutorAgentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            if (next == null) {
+                return CompletableFuture.failedFuture(notRetried(first));
+            }
+            return attemptAsync(next, request, onProgress).exceptionallyCompose(retryError ->
+                    CompletableFuture.failedFuture(retryFailed(first, unwrap(retryError))));
+        });
+    }
+
+    /**
+     * Run a submission through the agent's job queue: submit, then poll until
+     * the job is DONE (result returned) or FAILED (exception). Gives up after
+     * {@code executor.agent.job-max-wait-ms}.
+     */
+    public ExecuteResponse executeAsJob(ExecuteRequest request) {
+        UUID submissionId = request.getSubmissionId();
+        SubmittedJob submitted = submitJob(request);
+        AgentEndpoint agent = submitted.agent();
+        JobStatus job = submitted.status();
+        long deadline = System.currentTimeMillis() + jobMaxWaitMs;
+        long pollDelayMs = 250;
+        int pollErrors = 0;
+        boolean resubmitted = false;
+
+        while (true) {
+            if (JobStatus.DONE.equals(job.getState()) && job.getResult() != null) {
+                log.info("Submission {}: job {} done on {} (queued {}ms, ran {}ms)",
+                        submissionId, job.getJobId(), agent.baseUrl, job.getQueueWaitMs(), job.getRunTimeMs());
+                return job.getResult();
+            }
+            if (JobStatus.FAILED.equals(job.getState())) {
+                throw new ExecutorAgentException("Executor agent job " + job.getJobId() + " failed: " + job.getError());
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new ExecutorAgentException("Executor agent job " + job.getJobId() + " still "
+                        + job.getState() + " after " + jobMaxWaitMs + "ms");
+            }
+
+            try {
+                Thread.sleep(pollDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExecutorAgentException("Interrupted while waiting for executor agent job " + job.getJobId());
+            }
+            pollDelayMs = Math.min(pollDelayMs * 2, 2_000);
 
-        this.restClient = RestClient.builder()
-                .baseUrl(baseUrl)
-                .requestFactory(factory)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                .build();
+            JobStatus polled;
+            try {
+                polled = getJob(agent, job.getJobId());
+                pollErrors = 0;
+            } catch (Exception e) {
+                if (++pollErrors >= MAX_CONSECUTIVE_POLL_ERRORS) {
+                    throw new ExecutorAgentException("Executor agent " + agent.baseUrl + " unreachable while polling job "
+                            + job.getJobId() + ": " + e.getMessage(), e);
+                }
+                log.warn("Submission {}: polling job {} on {} failed ({}), will retry",
+                        submissionId, job.getJobId(), agent.baseUrl, e.getMessage());
+                continue;
+            }
 
-        log.info("ExecutorAgentClient initialized: baseUrl={}, timeoutMs={}", baseUrl, timeoutMs);
+            if (polled == null) {
+                if (resubmitted) {
+                    throw new ExecutorAgentException("Executor agent lost job " + job.getJobId() + " twice");
+                }
+                log.warn("Submission {}: job {} unknown to {} (restarted?), resubmitting",
+                        submissionId, job.getJobId(), agent.baseUrl);
+                resubmitted = true;
+                submitted = submitJob(request);
+                agent = submitted.agent();
+                polled = submitted.status();
+            }
+            job = polled;
+        }
     }
 
-    /** Submit a job to the agent. Retries once on transient failure. */
-    public ExecuteResponse execute(ExecuteRequest request) {
-        if (restClient == null) {
+    /**
+     * Execution slots advertised by the agents currently in routing (health
+     * poll succeeded, breaker not open). 0 until a health poll has reported.
+     */
+    public int advertisedCapacity() {
+        return router.endpoints().stream()
+                .filter(AgentEndpoint::isRoutable)
+                .mapToInt(AgentEndpoint::reportedMax)
+                .sum();
+    }
+
+    /** Per-agent routing state for the monitoring endpoint. */
+    public List<Map<String, Object>> agentStats() {
+        return router.endpoints().stream().map(AgentEndpoint::stats).toList();
+    }
+
+    /** Test data sent by reference vs uploaded, for the monitoring endpoint. */
+    public Map<String, Object> testDataStats() {
+        return testData.stats();
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    /** Enqueue on the least-loaded agent. Retries once on transient failure, including a full queue (503). */
+    private SubmittedJob submitJob(ExecuteRequest request) {
+        return withRetry(agent -> withTestData(agent, request, wire -> new SubmittedJob(agent, agent.restClient.post()
+                .uri("/v1/jobs")
+                .body(wire)
+                .retrieve()
+                .body(JobStatus.class))));
+    }
+
+    /**
+     * {@code send} with the request {@link TestDataSync} prepared for
+     * {@code agent}. If the agent no longer holds a referenced blob (409) the
+     * request goes to it once more with the test data inline.
+     */
+    private <T> T withTestData(AgentEndpoint agent, ExecuteRequest request, Function<ExecuteRequest, T> send) {
+        ExecuteRequest wire = testData.prepare(agent, request);
+        if (wire == request) {
+            return send.apply(request);
+        }
+        try {
+            return send.apply(wire);
+        } catch (RestClientResponseException e) {
+            if (!isStaleTestData(e)) {
+                throw e;
+            }
+            log.info("Executor agent {} no longer holds test data for submission {}, resending inline",
+                    agent.baseUrl, request.getSubmissionId());
+            testData.forget(agent, wire);
+            return send.apply(request);
+        }
+    }
+
+    private static boolean isStaleTestData(Throwable error) {
+        return error instanceof RestClientResponseException httpError && httpError.getStatusCode().value() == 409;
+    }
+
+    /** Current job status, or null if the agent doesn't know the job (expired or agent restarted). */
+    private JobStatus getJob(AgentEndpoint agent, UUID jobId) {
+        return attempt(agent, a -> a.restClient.get()
+                .uri("/v1/jobs/{id}", jobId)
+                .exchange((httpRequest, httpResponse) -> {
+                    HttpStatusCode status = httpResponse.getStatusCode();
+                    if (status.value() == 404) {
+                        return null;
+                    }
+                    if (status.isError()) {
+                        throw new RestClientResponseException(
+                                "Executor agent job poll returned " + status.value(), status,
+                                httpResponse.getStatusText(), httpResponse.getHeaders(),
+                                httpResponse.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                    return objectMapper.readValue(httpResponse.getBody(), JobStatus.class);
+                }));
+    }
+
+    private <T> T withRetry(Function<AgentEndpoint, T> call) {
+        if (!router.isConfigured()) {
             throw new ExecutorAgentException("ExecutorAgentClient not configured (executor.agent.base-url empty)");
         }
 
+        AgentEndpoint agent = route(Set.of());
         try {
-            return doExecute(request);
-        } catch (ResourceAccessException firstAttemptIo) {
-            // Connection refused / read timeout / DNS failure — retry once.
-            log.warn("Executor agent call failed ({}), retrying once", firstAttemptIo.getMessage());
+            return attempt(agent, call);
+        } catch (ExecutorAgentException e) {
+            throw e;
+        } catch (Exception first) {
+            AgentEndpoint next = retryTarget(agent, first);
+            if (next == null) {
+                throw notRetried(first);
+            }
             try {
-                return doExecute(request);
+                return attempt(next, call);
             } catch (Exception retryError) {
-                throw new ExecutorAgentException(
-                        "Executor agent unreachable after retry: " + retryError.getMessage(), retryError);
+                throw retryFailed(first, retryError);
             }
-        } catch (RestClientResponseException httpError) {
+        }
+    }
+
+    /**
+     * Where a failed first attempt is retried, or null if it is not. Connection
+     * failures / read timeouts and 502-504 get one retry; see the class doc for
+     * which agent it goes to.
+     */
+    private AgentEndpoint retryTarget(AgentEndpoint agent, Throwable first) {
+        if (first instanceof ResourceAccessException io) {
+            // Connection refused / read timeout / DNS failure — retry once.
+            boolean neverReached = isConnectFailure(io);
+            log.warn("Executor agent {} call failed ({}), retrying once{}", agent.baseUrl,
+                    io.getMessage(), neverReached ? " on another agent" : "");
+            return neverReached ? route(Set.of(agent)) : readmit(agent);
+        }
+        if (first instanceof RestClientResponseException httpError) {
             int status = httpError.getStatusCode().value();
             if (status == 503 || status == 502 || status == 504) {
-                // Server-side transient — single retry
-                log.warn("Executor agent returned {} ({}), retrying once", status, httpError.getMessage());
-                try {
-                    return doExecute(request);
-                } catch (Exception retryError) {
-                    throw new ExecutorAgentException(
-                            "Executor agent transient error after retry: " + retryError.getMessage(), retryError);
-                }
+                // Server-side transient — single retry, elsewhere if possible
+                log.warn("Executor agent {} returned {} ({}), retrying once", agent.baseUrl, status, httpError.getMessage());
+                return route(Set.of(agent));
+            }
+        }
+        return null;
+    }
+
+    private static ExecutorAgentException notRetried(Throwable error) {
+        if (error instanceof RestClientResponseException httpError) {
+            return new ExecutorAgentException("Executor agent returned " + httpError.getStatusCode().value()
+                    + ": " + httpError.getResponseBodyAsString(), httpError);
+        }
+        return new ExecutorAgentException("Executor agent call failed: " + error.getMessage(), error);
+    }
+
+    private static ExecutorAgentException retryFailed(Throwable first, Throwable retryError) {
+        String prefix = first instanceof ResourceAccessException
+                ? "Executor agent unreachable after retry: "
+                : "Executor agent transient error after retry: ";
+        return new ExecutorAgentException(prefix + retryError.getMessage(), retryError);
+    }
+
+    /** One call against one agent, with the outcome reported to its breaker and metrics. */
+    private <T> T attempt(AgentEndpoint agent, Function<AgentEndpoint, T> call) {
+        long started = agent.begin();
+        try {
+            T result = call.apply(agent);
+            agent.recordSuccess(started);
+            return result;
+        } catch (RuntimeException e) {
+            recordOutcome(agent, started, e);
+            throw e;
+        }
+    }
+
+    private void recordOutcome(AgentEndpoint agent, long started, Throwable error) {
+        if (error == null) {
+            agent.recordSuccess(started);
+            return;
+        }
+        if (error instanceof RestClientResponseException httpError) {
+            int status = httpError.getStatusCode().value();
+            if (status < 500 || status == 503) {
+                agent.recordNeutral();      // 4xx is our request's fault; 503 is load, not breakage
+                return;
             }
-            throw new ExecutorAgentException(
-                    "Executor agent returned " + status + ": " + httpError.getResponseBodyAsString(), httpError);
-        } catch (Exception other) {
-            throw new ExecutorAgentException("Executor agent call failed: " + other.getMessage(), other);
+        }
+        if (agent.recordFailure(started)) {
+            log.warn("Executor agent {} circuit breaker opened after repeated failures (last: {})",
+                    agent.baseUrl, error.getMessage());
         }
     }
 
-    private ExecuteResponse doExecute(ExecuteRequest request) {
-        return restClient.post()
+    private AgentEndpoint route(Set<AgentEndpoint> exclude) {
+        AgentEndpoint agent = router.pick(exclude);
+        if (agent == null) {
+            throw new ExecutorAgentException("No executor agent available (all circuit breakers open)");
+        }
+        return agent;
+    }
+
+    /** Same agent again (idempotent replay), unless its breaker has just opened. */
+    private AgentEndpoint readmit(AgentEndpoint agent) {
+        return agent.tryAdmit() ? agent : route(Set.of(agent));
+    }
+
+    private static boolean isConnectFailure(ResourceAccessException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof ConnectException || cause instanceof UnknownHostException
+                || cause instanceof HttpConnectTimeoutException;
+    }
+
+    /** {@link #withTestData} for the async path. */
+    private CompletableFuture<ExecuteResponse> attemptAsync(AgentEndpoint agent, ExecuteRequest request,
+                                                            Consumer<ExecutionEvent> onProgress) {
+        ExecuteRequest wire;
+        CompletableFuture<ExecuteResponse> call;
+        try {
+            wire = testData.prepare(agent, request);
+            call = attemptAsync(agent, wire, json(wire), onProgress);
+        } catch (ExecutorAgentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (wire == request) {
+            return call;
+        }
+        return call.exceptionallyCompose(error -> {
+            Throwable cause = unwrap(error);
+            if (!isStaleTestData(cause)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            log.info("Executor agent {} no longer holds test data for submission {}, resending inline",
+                    agent.baseUrl, request.getSubmissionId());
+            testData.forget(agent, wire);
+            try {
+                return attemptAsync(agent, request, json(request), onProgress);
+            } catch (ExecutorAgentException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    private byte[] json(ExecuteRequest request) {
+        try {
+            return objectMapper.writeValueAsBytes(request);
+        } catch (IOException e) {
+            throw new ExecutorAgentException("Could not serialize request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One async call against one agent. Failures surface as the same exception
+     * types the RestClient path throws ({@link ResourceAccessException} for
+     * I/O, {@link RestClientResponseException} for HTTP errors) so both paths
+     * share {@link #retryTarget}.
+     */
+    private CompletableFuture<ExecuteResponse> attemptAsync(AgentEndpoint agent, ExecuteRequest request, byte[] json,
+                                                            Consumer<ExecutionEvent> onProgress) {
+        boolean stream = onProgress != null && !agent.streamingUnsupported;
+        long started = agent.begin();
+        CompletableFuture<ExecuteResponse> call;
+        try {
+            HttpRequest httpRequest = asyncRequest(agent, stream ? "/v1/execute/stream" : "/v1/execute", json, !stream);
+            call = stream
+                    ? streamAsync(agent, httpRequest, request, json, onProgress)
+                    : router.httpClient().sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                            .thenApply(this::readResponse);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        return call
+                .exceptionallyCompose(error -> CompletableFuture.failedFuture(asClientException(unwrap(error))))
+                .whenComplete((response, error) -> recordOutcome(agent, started, error == null ? null : unwrap(error)));
+    }
+
+    private CompletableFuture<ExecuteResponse> streamAsync(AgentEndpoint agent, HttpRequest httpRequest,
+                                                           ExecuteRequest request, byte[] json,
+                                                           Consumer<ExecutionEvent> onProgress) {
+        EventLineSubscriber lines = new EventLineSubscriber(request.getSubmissionId(), onProgress);
+        return router.httpClient()
+                .sendAsync(httpRequest, info -> info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.fromLineSubscriber(lines, EventLineSubscriber::result,
+                                StandardCharsets.UTF_8, null)
+                        : HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                                body -> { lines.errorBody = body; return null; }))
+                .thenCompose(response -> {
+                    if (response.statusCode() == 404) {
+                        log.warn("Executor agent {} has no /v1/execute/stream, falling back to /v1/execute", agent.baseUrl);
+                        agent.streamingUnsupported = true;
+                        return router.httpClient()
+                                .sendAsync(asyncRequest(agent, "/v1/execute", json, true),
+                                        HttpResponse.BodyHandlers.ofByteArray())
+                                .thenApply(this::readResponse);
+                    }
+                    if (response.statusCode() != 200) {
+                        throw httpError(response.statusCode(), lines.errorBody);
+                    }
+                    if (response.body() == null) {
+                        // Stream ended without a RESULT: connection dropped mid-run. Treated as
+                        // an I/O failure so the retry hits the agent's idempotency cache.
+                        throw new ResourceAccessException("Executor agent stream ended before the final result");
+                    }
+                    return CompletableFuture.completedFuture(response.body());
+                });
+    }
+
+    private HttpRequest asyncRequest(AgentEndpoint agent, String path, byte[] json, boolean acceptGzip) {
+        GzipInterceptor gzip = router.gzip();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(agent.baseUrl + path))
+                .timeout(Duration.ofMillis(router.timeoutMs()))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + router.token())
+                .header(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (acceptGzip) {
+            builder.header(HttpHeaders.ACCEPT_ENCODING, GzipInterceptor.GZIP);
+        }
+        byte[] body = json;
+        if (gzip.shouldCompress(json)) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, GzipInterceptor.GZIP);
+            body = GzipInterceptor.gzip(json);
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private ExecuteResponse readResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw httpError(response.statusCode(), response.body());
+        }
+        String encoding = response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null);
+        try (InputStream body = GzipInterceptor.gunzipIfNeeded(new ByteArrayInputStream(response.body()), encoding)) {
+            return objectMapper.readValue(body, ExecuteResponse.class);
+        } catch (IOException e) {
+            throw new ResourceAccessException("Unreadable executor agent response: " + e.getMessage(), e);
+        }
+    }
+
+    private static RestClientResponseException httpError(int status, byte[] body) {
+        return new RestClientResponseException("Executor agent returned " + status, HttpStatusCode.valueOf(status),
+                "", null, body, StandardCharsets.UTF_8);
+    }
+
+    private static Throwable asClientException(Throwable error) {
+        if (error instanceof IOException io) {
+            return new ResourceAccessException("I/O error on executor agent call: " + io.getMessage(), io);
+        }
+        return error;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private ExecuteResponse doExecute(AgentEndpoint agent, ExecuteRequest request) {
+        return agent.restClient.post()
                 .uri("/v1/execute")
                 .body(request)
                 .retrieve()
                 .body(ExecuteResponse.class);
     }
 
+    private ExecuteResponse doExecuteStream(AgentEndpoint agent, ExecuteRequest request,
+                                            Consumer<ExecutionEvent> onProgress) {
+        return agent.restClient.post()
+                .uri("/v1/execute/stream")
+                .body(request)
+                .exchange((httpRequest, httpResponse) -> {
+                    HttpStatusCode status = httpResponse.getStatusCode();
+                    if (status.value() == 404) {
+                        log.warn("Executor agent {} has no /v1/execute/stream, falling back to /v1/execute", agent.baseUrl);
+                        agent.streamingUnsupported = true;
+                        return doExecute(agent, request);
+                    }
+                    if (status.isError()) {
+                        throw new RestClientResponseException(
+                                "Executor agent stream returned " + status.value(), status,
+                                httpResponse.getStatusText(), httpResponse.getHeaders(),
+                                httpResponse.getBody().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(httpResponse.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.isBlank()) continue;
+                            ExecutionEvent event = objectMapper.readValue(line, ExecutionEvent.class);
+                            if (ExecutionEvent.RESULT.equals(event.getType())) {
+                                return event.getResult();
+                            }
+                            try {
+                                onProgress.accept(event);
+                            } catch (Exception e) {
+                                log.debug("Progress callback failed for submission {}: {}",
+                                        request.getSubmissionId(), e.getMessage());
+                            }
+                        }
+                    }
+                    // Stream ended without a RESULT: connection dropped mid-run. Treated as
+                    // an I/O failure so the retry hits the agent's idempotency cache.
+                    throw new ResourceAccessException("Executor agent stream ended before the final result");
+                });
+    }
+
+    private record SubmittedJob(AgentEndpoint agent, JobStatus status) {
+    }
+
+    /**
+     * NDJSON line consumer for the async stream: progress events go to the
+     * callback as they arrive, the RESULT is kept for the finisher.
+     */
+    private final class EventLineSubscriber implements Flow.Subscriber<String> {
+        private final UUID submissionId;
+        private final Consumer<ExecutionEvent> onProgress;
+        private volatile ExecuteResponse result;
+        private volatile byte[] errorBody;
+
+        private EventLineSubscriber(UUID submissionId, Consumer<ExecutionEvent> onProgress) {
+            this.submissionId = submissionId;
+            this.onProgress = onProgress;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.isBlank()) return;
+            try {
+                ExecutionEvent event = objectMapper.readValue(line, ExecutionEvent.class);
+                if (ExecutionEvent.RESULT.equals(event.getType())) {
+                    result = event.getResult();
+                } else {
+                    onProgress.accept(event);
+                }
+            } catch (Exception e) {
+                log.debug("Skipping stream line for submission {}: {}", submissionId, e.getMessage());
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // surfaces through the response future
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        ExecuteResponse result() {
+            return result;
+        }
+    }
+
     public static class ExecutorAgentException extends RuntimeException {
         public ExecutorAgentException(String message) {
             super(message);
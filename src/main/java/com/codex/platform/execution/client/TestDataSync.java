@@ -0,0 +1,226 @@
+package com.codex.platform.execution.client;
+
+import com.codex.platform.execution.client.dto.ExecuteRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends test data to an agent by reference instead of by value.
+ *
+ * <p>{@link #prepare} swaps every test-case {@code stdin} / {@code expectedStdout}
+ * of at least {@code executor.agent.test-data.min-bytes} for its SHA-256, after
+ * making sure the agent holds the blob: hashes this process has not yet seen
+ * the agent accept are checked with {@code POST /v1/blobs/missing} and only
+ * the missing ones are uploaded with {@code POST /v1/blobs}. Repeat
+ * submissions to a problem therefore send hashes and source code only, with
+ * no extra round trip.
+ *
+ * <p>The per-agent "known" set is a hint: if the agent has evicted a blob
+ * since (or restarted with an empty cache) it answers the execute call with
+ * 409, the caller {@link #forget}s the request's hashes and re-sends it
+ * inline. Agents without the blob endpoints (404) always get inline data.
+ * Any failure while negotiating also falls back to inline data.
+ *
+ * <p>Digests are memoized per string instance: test cases come from
+ * {@code JudgeBundleCache}, so a hot problem's data is hashed once, not on
+ * every submission.
+ */
+@Slf4j
+final class TestDataSync {
+
+    /** Raw bytes per {@code POST /v1/blobs}, well below the agent's request cap. */
+    private static final long UPLOAD_BATCH_BYTES = 8L * 1024 * 1024;
+
+    private final int minBytes;
+    private final int knownPerAgent;
+
+    private final Map<String, String> digests = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<AgentEndpoint, Set<String>> known = new ConcurrentHashMap<>();
+    private final Set<AgentEndpoint> unsupported = ConcurrentHashMap.newKeySet();
+
+    // Metrics
+    private final AtomicLong negotiations = new AtomicLong();
+    private final AtomicLong uploadedBlobs = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong referencedBytes = new AtomicLong();
+    private final AtomicLong inlineFallbacks = new AtomicLong();
+
+    TestDataSync(int minBytes, int knownPerAgent) {
+        this.minBytes = minBytes;
+        this.knownPerAgent = Math.max(16, knownPerAgent);
+    }
+
+    /**
+     * The request to put on the wire for {@code agent}: {@code request} itself
+     * when nothing qualifies or negotiation fails, otherwise a copy whose
+     * large test data is replaced by hashes the agent holds.
+     */
+    ExecuteRequest prepare(AgentEndpoint agent, ExecuteRequest request) {
+        if (minBytes <= 0 || request.getTestCases() == null || unsupported.contains(agent)) {
+            return request;
+        }
+
+        Map<String, String> blobs = new LinkedHashMap<>();
+        List<ExecuteRequest.TestCase> wireTestCases = new ArrayList<>(request.getTestCases().size());
+        long referenced = 0;
+        for (ExecuteRequest.TestCase testCase : request.getTestCases()) {
+            String stdinHash = reference(testCase.getStdin(), blobs);
+            String expectedHash = reference(testCase.getExpectedStdout(), blobs);
+            if (stdinHash == null && expectedHash == null) {
+                wireTestCases.add(testCase);
+                continue;
+            }
+            ExecuteRequest.TestCase.TestCaseBuilder wire = testCase.toBuilder();
+            if (stdinHash != null) {
+                wire.stdin(null).stdinHash(stdinHash);
+                referenced += testCase.getStdin().length();
+            }
+            if (expectedHash != null) {
+                wire.expectedStdout(null).expectedStdoutHash(expectedHash);
+                referenced += testCase.getExpectedStdout().length();
+            }
+            wireTestCases.add(wire.build());
+        }
+        if (blobs.isEmpty()) {
+            return request;
+        }
+
+        Set<String> agentKnown = knownBy(agent);
+        List<String> unconfirmed = blobs.keySet().stream().filter(hash -> !agentKnown.contains(hash)).toList();
+        if (!unconfirmed.isEmpty()) {
+            try {
+                negotiations.incrementAndGet();
+                upload(agent, missing(agent, unconfirmed), blobs);
+                agentKnown.addAll(unconfirmed);
+            } catch (RestClientResponseException e) {
+                if (e.getStatusCode().value() == 404) {
+                    log.warn("Executor agent {} has no /v1/blobs, sending test data inline", agent.baseUrl);
+                    unsupported.add(agent);
+                } else {
+                    log.warn("Test data upload to {} failed ({}), sending inline", agent.baseUrl, e.getMessage());
+                }
+                inlineFallbacks.incrementAndGet();
+                return request;
+            } catch (RuntimeException e) {
+                log.warn("Test data upload to {} failed ({}), sending inline", agent.baseUrl, e.getMessage());
+                inlineFallbacks.incrementAndGet();
+                return request;
+            }
+        }
+
+        referencedBytes.addAndGet(referenced);
+        return request.toBuilder().testCases(wireTestCases).build();
+    }
+
+    /** The agent refused {@code wire} for unknown hashes: stop assuming it holds any of them. */
+    void forget(AgentEndpoint agent, ExecuteRequest wire) {
+        Set<String> agentKnown = knownBy(agent);
+        for (ExecuteRequest.TestCase testCase : wire.getTestCases()) {
+            if (testCase.getStdinHash() != null) agentKnown.remove(testCase.getStdinHash());
+            if (testCase.getExpectedStdoutHash() != null) agentKnown.remove(testCase.getExpectedStdoutHash());
+        }
+        inlineFallbacks.incrementAndGet();
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("minBytes", minBytes);
+        stats.put("negotiations", negotiations.get());
+        stats.put("uploadedBlobs", uploadedBlobs.get());
+        stats.put("uploadedBytes", uploadedBytes.get());
+        stats.put("referencedBytes", referencedBytes.get());
+        stats.put("inlineFallbacks", inlineFallbacks.get());
+        return stats;
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    /** Hash of {@code value} (recorded in {@code blobs}) if it is worth sending by reference, else null. */
+    private String reference(String value, Map<String, String> blobs) {
+        if (value == null || value.length() < minBytes) {
+            return null;
+        }
+        String hash = digests.computeIfAbsent(value, TestDataSync::sha256);
+        blobs.putIfAbsent(hash, value);
+        return hash;
+    }
+
+    private List<String> missing(AgentEndpoint agent, List<String> hashes) {
+        JsonNode body = agent.restClient.post()
+                .uri("/v1/blobs/missing")
+                .body(Map.of("hashes", hashes))
+                .retrieve()
+                .body(JsonNode.class);
+        List<String> missing = new ArrayList<>();
+        if (body != null) {
+            body.path("missing").forEach(hash -> missing.add(hash.asText()));
+        }
+        return missing;
+    }
+
+    private void upload(AgentEndpoint agent, List<String> missing, Map<String, String> blobs) {
+        Map<String, String> batch = new LinkedHashMap<>();
+        long batchBytes = 0;
+        for (String hash : missing) {
+            String value = blobs.get(hash);
+            if (value == null) {
+                continue;       // not one of ours
+            }
+            batch.put(hash, value);
+            batchBytes += value.length();
+            if (batchBytes >= UPLOAD_BATCH_BYTES) {
+                send(agent, batch, batchBytes);
+                batch = new LinkedHashMap<>();
+                batchBytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(agent, batch, batchBytes);
+        }
+    }
+
+    private void send(AgentEndpoint agent, Map<String, String> batch, long bytes) {
+        agent.restClient.post()
+                .uri("/v1/blobs")
+                .body(Map.of("blobs", batch))
+                .retrieve()
+                .toBodilessEntity();
+        uploadedBlobs.addAndGet(batch.size());
+        uploadedBytes.addAndGet(bytes);
+        log.debug("Uploaded {} test data blob(s), {} chars, to {}", batch.size(), bytes, agent.baseUrl);
+    }
+
+    private Set<String> knownBy(AgentEndpoint agent) {
+        return known.computeIfAbsent(agent, a -> Collections.synchronizedSet(Collections.newSetFromMap(
+                new LinkedHashMap<>(64, 0.75f) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > knownPerAgent;
+                    }
+                })));
+    }
+
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
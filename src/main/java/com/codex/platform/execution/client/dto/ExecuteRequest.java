@@ -1,5 +1,6 @@
 package com.codex.platform.execution.client.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,7 +14,7 @@ import java.util.UUID;
  * Sent over HTTP to the executor agent on EC2 when {@code execution.mode=remote}.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ExecuteRequest {
@@ -29,13 +30,23 @@ public class ExecuteRequest {
     private int memoryLimitMb;
     private List<TestCase> testCases;
 
+    /** Async job mode only; null = the platform polls {@code GET /v1/jobs/{id}}. */
+    private String callbackUrl;
+
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class TestCase {
         private String id;
         private String stdin;
         private String expectedStdout;
+
+        /** SHA-256 of {@code stdin} already held by the agent; {@code stdin} is then left null. */
+        private String stdinHash;
+
+        /** SHA-256 of {@code expectedStdout} already held by the agent; {@code expectedStdout} is then left null. */
+        private String expectedStdoutHash;
     }
 }
@@ -24,6 +24,8 @@ public class ExecuteResponse {
     private String compileOutput;
     private long compileTimeMs;
     private long totalExecTimeMs;
+    private Long totalCpuTimeMs;
+    private Long peakMemoryKb;
     private int passedTestCases;
     private int totalTestCases;
     private String stdout;
@@ -40,5 +42,7 @@ public class ExecuteResponse {
         private String stderr;
         private long execTimeMs;
         private int exitCode;
+        private Long cpuTimeMs;
+        private Long peakMemoryKb;
     }
 }
@@ -0,0 +1,35 @@
+package com.codex.platform.execution.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Backend-side mirror of {@code com.codex.agent.dto.ExecutionEvent}: one NDJSON
+ * line of {@code POST /v1/execute/stream}. {@code type} is COMPILED, TEST or
+ * RESULT; only the fields for that type are set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionEvent {
+    public static final String COMPILED = "COMPILED";
+    public static final String TEST = "TEST";
+    public static final String RESULT = "RESULT";
+
+    private String type;
+    private UUID submissionId;
+
+    private Boolean compileSuccess;
+    private Long compileTimeMs;
+    private Boolean compileCached;
+
+    private Integer testIndex;
+    private Integer completed;
+    private Integer total;
+    private ExecuteResponse.TestResult test;
+
+    private ExecuteResponse result;
+}
@@ -0,0 +1,33 @@
+package com.codex.platform.execution.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Backend-side mirror of {@code com.codex.agent.dto.JobStatus}: what the
+ * agent returns from {@code POST /v1/jobs} and {@code GET /v1/jobs/{id}}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatus {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private UUID jobId;
+    private UUID submissionId;
+    private String state;
+    private Integer queuePosition;
+    private Long queueWaitMs;
+    private Long runTimeMs;
+    private ExecuteResponse result;
+    private String error;
+}
@@ -1,17 +1,15 @@
 package com.codex.platform.execution.service;
 
 import com.codex.platform.common.enums.SubmissionStatus;
-import com.codex.platform.common.util.OutputNormalizer;
+import com.codex.platform.common.util.OutputComparator;
 import com.codex.platform.execution.client.ExecutorAgentClient;
 import com.codex.platform.execution.client.dto.ExecuteRequest;
 import com.codex.platform.execution.client.dto.ExecuteResponse;
+import com.codex.platform.execution.client.dto.ExecutionEvent;
 import com.codex.platform.execution.dto.ExecutionResult;
 import com.codex.platform.execution.entity.Language;
-import com.codex.platform.execution.repository.LanguageRepository;
 import com.codex.platform.problem.entity.Problem;
 import com.codex.platform.problem.entity.TestCase;
-import com.codex.platform.problem.repository.ProblemRepository;
-import com.codex.platform.problem.repository.TestCaseRepository;
 import com.codex.platform.realtime.service.SseService;
 import com.codex.platform.submission.entity.Submission;
 import com.codex.platform.submission.entity.SubmissionResult;
@@ -22,13 +20,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -36,14 +39,13 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ExecutionService {
 
     private final SubmissionRepository submissionRepository;
-    private final ProblemRepository problemRepository;
-    private final TestCaseRepository testCaseRepository;
-    private final LanguageRepository languageRepository;
     private final DockerExecutor dockerExecutor;
     private final ExecutorAgentClient executorAgentClient;
     private final SseService sseService;
     private final SubmissionCacheService cacheService;
     private final AsyncResultPersister asyncResultPersister;
+    private final TransactionTemplate transactionTemplate;
+    private final JudgeBundleCache judgeBundleCache;
 
     /**
      * "local"  → drive DockerExecutor on the same machine (legacy path).
@@ -53,6 +55,29 @@ public class ExecutionService {
     @Value("${execution.mode:local}")
     private String executionMode;
 
+    /**
+     * Remote mode only: use the agent's NDJSON streaming endpoint and forward
+     * compile / per-test progress to the browser over SSE as it happens.
+     */
+    @Value("${executor.agent.streaming:true}")
+    private boolean streamingEnabled;
+
+    /**
+     * Remote mode only: enqueue on the agent's job API and poll for the
+     * result instead of holding one HTTP request open per submission. Takes
+     * precedence over streaming (jobs report no per-test progress).
+     */
+    @Value("${executor.agent.async-jobs:false}")
+    private boolean asyncJobsEnabled;
+
+    /**
+     * Remote mode only: {@code SubmissionWorker} dispatches through
+     * {@link #executeSubmissionAsync} so a few worker threads keep up to
+     * {@code execution.max-in-flight} submissions running on the agents.
+     */
+    @Value("${execution.async-dispatch:false}")
+    private boolean asyncDispatchEnabled;
+
     // Metrics
     private final AtomicLong totalSubmissions = new AtomicLong(0);
     private final AtomicLong successfulExecutions = new AtomicLong(0);
@@ -69,66 +94,147 @@ public class ExecutionService {
      *   <li>Persist to DB async    (background thread)</li>
      * </ol>
      *
-     * <p>Marked {@code @Transactional} so the RUNNING status save and subsequent
-     * reads happen within a single session — avoids detached-entity errors when
-     * the worker thread calls JPA repositories directly.
+     * <p>Deliberately not {@code @Transactional}: judging can take minutes and
+     * must not pin a pooled DB connection. The pipeline runs in short phases:
+     * <ol>
+     *   <li>load + mark RUNNING — one short transaction ({@link #prepare})</li>
+     *   <li>judge — no transaction, entities are detached value holders</li>
+     *   <li>persist — {@link AsyncResultPersister} in its own transaction, or
+     *   {@link #failSubmission} in another short one</li>
+     * </ol>
      */
-    @Transactional
     public void executeSubmission(UUID submissionId) {
         log.info("Starting execution for submission: {} (mode={})", submissionId, executionMode);
         totalSubmissions.incrementAndGet();
 
         try {
-            // Load submission
-            Submission submission = submissionRepository
+            PreparedSubmission prepared = prepare(submissionId);
+
+            if ("remote".equalsIgnoreCase(executionMode)) {
+                executeRemote(prepared.submission(), prepared.problem(), prepared.language(), prepared.testCases());
+            } else {
+                executeLocal(prepared.submission(), prepared.problem(), prepared.language(), prepared.testCases());
+            }
+
+        } catch (Exception e) {
+            failSubmission(submissionId, e);
+        }
+    }
+
+    /**
+     * Whether {@link #executeSubmissionAsync} applies: remote mode over the
+     * plain or streaming endpoint with {@code execution.async-dispatch} on.
+     * The job API ({@code executor.agent.async-jobs}) polls and stays blocking.
+     */
+    public boolean isAsyncDispatchEnabled() {
+        return asyncDispatchEnabled && "remote".equalsIgnoreCase(executionMode) && !asyncJobsEnabled;
+    }
+
+    /**
+     * Non-blocking variant of {@link #executeSubmission} for remote mode. The
+     * load + RUNNING phase runs on the caller; the agent call does not hold a
+     * thread, and verdict delivery (Redis, SSE, async persist) runs on the
+     * HTTP client's completion thread. The future never completes
+     * exceptionally — failures are recorded on the submission like the
+     * blocking path does.
+     *
+     * <p>Same phases as {@link #executeSubmission}; no transaction is open
+     * while the agent call is pending.
+     */
+    public CompletableFuture<Void> executeSubmissionAsync(UUID submissionId) {
+        log.info("Starting execution for submission: {} (mode=remote, async)", submissionId);
+        totalSubmissions.incrementAndGet();
+
+        PreparedSubmission prepared;
+        ExecuteRequest request;
+        try {
+            prepared = prepare(submissionId);
+            request = buildRemoteRequest(prepared.submission(), prepared.problem(), prepared.language(),
+                    prepared.testCases());
+        } catch (Exception e) {
+            failSubmission(submissionId, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Consumer<ExecutionEvent> onProgress = streamingEnabled ? event -> forwardProgress(submissionId, event) : null;
+        return executorAgentClient.executeAsync(request, onProgress)
+                .handle((response, error) -> {
+                    try {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        if (cause instanceof ExecutorAgentClient.ExecutorAgentException agentError) {
+                            recordAgentFailure(prepared.submission(), prepared.testCases().size(), agentError);
+                        } else if (cause != null) {
+                            failSubmission(submissionId, cause);
+                        } else {
+                            recordRemoteResult(prepared.submission(), prepared.problem(), response);
+                        }
+                    } catch (Exception e) {
+                        failSubmission(submissionId, e);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Phase 1: marks the submission RUNNING in one short transaction, then
+     * takes problem, language and test cases from {@link JudgeBundleCache}
+     * (no DB read when the problem is hot). The returned entities are
+     * detached (plain columns only, nothing lazy) and safe to use on any
+     * thread; the cached ones are shared and read-only.
+     */
+    private PreparedSubmission prepare(UUID submissionId) {
+        Submission submission = transactionTemplate.execute(status -> {
+            Submission s = submissionRepository
                     .findById(Objects.requireNonNull(submissionId, "Submission ID is required"))
                     .orElseThrow(() -> new IllegalArgumentException("Submission not found: " + submissionId));
+            s.setStatus(SubmissionStatus.RUNNING);
+            return submissionRepository.save(s);
+        });
 
-            // Immediately broadcast RUNNING so the UI shows a spinner
-            submission.setStatus(SubmissionStatus.RUNNING);
-            submissionRepository.save(submission);
-            sseService.sendEvent(submissionId, SubmissionStatus.RUNNING);
-            log.info("Submission {} marked RUNNING and SSE event fired", submissionId);
-
-            // Load problem, language, and test cases
-            Problem problem = problemRepository
-                    .findById(Objects.requireNonNull(submission.getProblemId(), "Problem ID is required"))
-                    .orElseThrow(() -> new IllegalArgumentException("Problem not found"));
+        // Load problem, language, and test cases
+        JudgeBundleCache.JudgeBundle bundle = judgeBundleCache
+                .bundle(Objects.requireNonNull(submission.getProblemId(), "Problem ID is required"))
+                .orElseThrow(() -> new IllegalArgumentException("Problem not found"));
 
-            Language language = languageRepository
-                    .findById(Objects.requireNonNull(submission.getLanguageId(), "Language ID is required"))
-                    .orElseThrow(() -> new IllegalArgumentException("Language not found"));
+        Language language = judgeBundleCache
+                .language(Objects.requireNonNull(submission.getLanguageId(), "Language ID is required"))
+                .orElseThrow(() -> new IllegalArgumentException("Language not found"));
 
-            List<TestCase> testCases = testCaseRepository.findByProblemId(problem.getId());
-            if (testCases.isEmpty()) {
-                throw new IllegalArgumentException("No test cases found for problem: " + problem.getId());
-            }
+        if (bundle.testCases().isEmpty()) {
+            throw new IllegalArgumentException("No test cases found for problem: " + bundle.problem().getId());
+        }
+        PreparedSubmission prepared = new PreparedSubmission(submission, bundle.problem(), language, bundle.testCases());
 
-            log.info("Executing submission {} against {} test case(s) via {} mode",
-                    submissionId, testCases.size(), executionMode);
+        // Broadcast RUNNING once committed so the UI shows a spinner
+        sseService.sendEvent(submissionId, SubmissionStatus.RUNNING);
+        log.info("Submission {} marked RUNNING and SSE event fired", submissionId);
 
-            if ("remote".equalsIgnoreCase(executionMode)) {
-                executeRemote(submission, problem, language, testCases);
-            } else {
-                executeLocal(submission, problem, language, testCases);
-            }
+        log.info("Executing submission {} against {} test case(s) via {} mode",
+                submissionId, prepared.testCases().size(), executionMode);
+        return prepared;
+    }
 
-        } catch (Exception e) {
-            log.error("Error executing submission {}: {}", submissionId, e.getMessage(), e);
+    private void failSubmission(UUID submissionId, Throwable e) {
+        log.error("Error executing submission {}: {}", submissionId, e.getMessage(), e);
 
-            // Cache error status first so SSE / REST both see it immediately
-            cacheService.cacheStatus(submissionId, SubmissionStatus.RUNTIME_ERROR);
-            sseService.sendEvent(submissionId, SubmissionStatus.RUNTIME_ERROR);
+        // Cache error status first so SSE / REST both see it immediately
+        cacheService.cacheStatus(submissionId, SubmissionStatus.RUNTIME_ERROR);
+        sseService.sendEvent(submissionId, SubmissionStatus.RUNTIME_ERROR);
 
-            // Update DB status directly (we are still in the @Transactional context here)
-            submissionRepository.findById(Objects.requireNonNull(submissionId))
+        // Update DB status directly, in its own short transaction
+        try {
+            transactionTemplate.executeWithoutResult(status -> submissionRepository
+                    .findById(Objects.requireNonNull(submissionId))
                     .ifPresent(s -> {
                         s.setStatus(SubmissionStatus.RUNTIME_ERROR);
                         submissionRepository.save(s);
-                    });
-
-            failedExecutions.incrementAndGet();
+                    }));
+        } catch (Exception dbError) {
+            log.error("Could not mark submission {} RUNTIME_ERROR in DB: {}", submissionId, dbError.getMessage());
         }
+
+        failedExecutions.incrementAndGet();
     }
 
     // ──────────────────────────────────────────────────────────────────────────
@@ -208,7 +314,7 @@ public class ExecutionService {
                         break;
                     }
 
-                    if (OutputNormalizer.areEqual(testCase.getExpectedOutput(), result.getStdout())) {
+                    if (OutputComparator.matches(testCase.getExpectedOutput(), result.getStdout())) {
                         passedCount++;
                         log.info("  -> Test {}/{} PASSED ({}ms)", testIndex, testCases.size(),
                                 result.getExecutionTimeMs());
@@ -264,7 +370,30 @@ public class ExecutionService {
 
     private void executeRemote(Submission submission, Problem problem, Language language, List<TestCase> testCases) {
         UUID submissionId = submission.getId();
+        ExecuteRequest request = buildRemoteRequest(submission, problem, language, testCases);
+
+        log.info("Dispatching submission {} to remote executor at {}", submissionId,
+                request.getSubmissionId());
+
+        ExecuteResponse response;
+        try {
+            if (asyncJobsEnabled) {
+                response = executorAgentClient.executeAsJob(request);
+            } else if (streamingEnabled) {
+                response = executorAgentClient.executeStreaming(request, event -> forwardProgress(submissionId, event));
+            } else {
+                response = executorAgentClient.execute(request);
+            }
+        } catch (ExecutorAgentClient.ExecutorAgentException agentError) {
+            recordAgentFailure(submission, testCases.size(), agentError);
+            return;
+        }
+
+        recordRemoteResult(submission, problem, response);
+    }
 
+    private ExecuteRequest buildRemoteRequest(Submission submission, Problem problem, Language language,
+                                              List<TestCase> testCases) {
         List<ExecuteRequest.TestCase> wireTestCases = testCases.stream()
                 .map(tc -> ExecuteRequest.TestCase.builder()
                         .id(tc.getId().toString())
@@ -273,8 +402,8 @@ public class ExecutionService {
                         .build())
                 .toList();
 
-        ExecuteRequest request = ExecuteRequest.builder()
-                .submissionId(submissionId)
+        return ExecuteRequest.builder()
+                .submissionId(submission.getId())
                 .language(language.getName())
                 .dockerImage(language.getDockerImage())
                 .compileCommand(language.getCompileCommand())
@@ -286,48 +415,54 @@ public class ExecutionService {
                 .memoryLimitMb(problem.getMemoryLimitMb())
                 .testCases(wireTestCases)
                 .build();
+    }
 
-        log.info("Dispatching submission {} to remote executor at {}", submissionId,
-                request.getSubmissionId());
+    private void recordAgentFailure(Submission submission, int totalTestCases,
+                                    ExecutorAgentClient.ExecutorAgentException agentError) {
+        UUID submissionId = submission.getId();
+        log.error("Submission {}: executor agent unreachable: {}", submissionId, agentError.getMessage());
+
+        SubmissionResult errorResult = new SubmissionResult();
+        errorResult.setSubmissionId(submissionId);
+        errorResult.setExecutionTimeMs(0L);
+        errorResult.setMemoryUsedMb(0L);
+        errorResult.setPassedTestCases(0);
+        errorResult.setTotalTestCases(totalTestCases);
+        errorResult.setStdout("");
+        errorResult.setStderr("Executor unavailable: " + agentError.getMessage());
+
+        // Redis-first even on agent error
+        cacheService.cacheResult(submissionId, SubmissionStatus.RUNTIME_ERROR, errorResult);
+        sseService.sendEvent(submissionId, SubmissionStatus.RUNTIME_ERROR);
+        asyncResultPersister.saveAsync(submission, errorResult, SubmissionStatus.RUNTIME_ERROR);
+
+        failedExecutions.incrementAndGet();
+    }
 
-        ExecuteResponse response;
-        try {
-            response = executorAgentClient.execute(request);
-        } catch (ExecutorAgentClient.ExecutorAgentException agentError) {
-            log.error("Submission {}: executor agent unreachable: {}", submissionId, agentError.getMessage());
-
-            SubmissionResult errorResult = new SubmissionResult();
-            errorResult.setSubmissionId(submissionId);
-            errorResult.setExecutionTimeMs(0L);
-            errorResult.setMemoryUsedMb(0L);
-            errorResult.setPassedTestCases(0);
-            errorResult.setTotalTestCases(testCases.size());
-            errorResult.setStdout("");
-            errorResult.setStderr("Executor unavailable: " + agentError.getMessage());
-
-            // Redis-first even on agent error
-            cacheService.cacheResult(submissionId, SubmissionStatus.RUNTIME_ERROR, errorResult);
-            sseService.sendEvent(submissionId, SubmissionStatus.RUNTIME_ERROR);
-            asyncResultPersister.saveAsync(submission, errorResult, SubmissionStatus.RUNTIME_ERROR);
-
-            failedExecutions.incrementAndGet();
-            return;
-        }
+    private void recordRemoteResult(Submission submission, Problem problem, ExecuteResponse response) {
+        UUID submissionId = submission.getId();
 
         // Map agent string status to our enum, defaulting safely
         SubmissionStatus finalStatus;
         try {
             finalStatus = SubmissionStatus.valueOf(response.getStatus());
         } catch (IllegalArgumentException unknown) {
-            log.warn("Submission {}: agent returned unknown status '{}', mapping to RUNTIME_ERROR",
-                    submissionId, response.getStatus());
+            if (!"OUTPUT_LIMIT_EXCEEDED".equals(response.getStatus())) {
+                log.warn("Submission {}: agent returned unknown status '{}', mapping to RUNTIME_ERROR",
+                        submissionId, response.getStatus());
+            }
+            // OUTPUT_LIMIT_EXCEEDED is agent-only: submissions.status has a DB check constraint
+            // over the enum, so it is stored as RUNTIME_ERROR and the agent's stderr says why.
             finalStatus = SubmissionStatus.RUNTIME_ERROR;
         }
 
         SubmissionResult submissionResult = new SubmissionResult();
         submissionResult.setSubmissionId(submissionId);
         submissionResult.setExecutionTimeMs(response.getCompileTimeMs() + response.getTotalExecTimeMs());
-        submissionResult.setMemoryUsedMb(0L);
+        // Peak RSS of the hungriest test, rounded up; 0 when the agent could not measure it
+        submissionResult.setMemoryUsedMb(response.getPeakMemoryKb() != null
+                ? (response.getPeakMemoryKb() + 1023) / 1024 : 0L);
+        submissionResult.setCpuTimeMs(response.getTotalCpuTimeMs());
         submissionResult.setPassedTestCases(response.getPassedTestCases());
         submissionResult.setTotalTestCases(response.getTotalTestCases());
         submissionResult.setStdout(response.getStdout());
@@ -350,10 +485,52 @@ public class ExecutionService {
         log.info("║ Verdict     : {} (remote)", finalStatus);
         log.info("║ Test Cases  : {}/{} passed", response.getPassedTestCases(), response.getTotalTestCases());
         log.info("║ Compile     : {}ms", response.getCompileTimeMs());
-        log.info("║ Run total   : {}ms (limit: {}ms)", response.getTotalExecTimeMs(), problem.getTimeLimitMs());
+        log.info("║ Run total   : {}ms wall, {}ms cpu (limit: {}ms)", response.getTotalExecTimeMs(),
+                response.getTotalCpuTimeMs(), problem.getTimeLimitMs());
+        log.info("║ Memory      : {}MB peak (limit: {}MB)", submissionResult.getMemoryUsedMb(), problem.getMemoryLimitMb());
         log.info("╚══════════════════════════════════════════════════");
     }
 
+    /** Relay one agent progress event to the browser as a RUNNING SSE event. */
+    private void forwardProgress(UUID submissionId, ExecutionEvent event) {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("phase", event.getType());
+
+        if (ExecutionEvent.COMPILED.equals(event.getType())) {
+            boolean success = Boolean.TRUE.equals(event.getCompileSuccess());
+            progress.put("compileSuccess", success);
+            progress.put("compileTimeMs", event.getCompileTimeMs());
+            progress.put("message", success ? "Compiled" : "Compilation failed");
+        } else if (ExecutionEvent.TEST.equals(event.getType()) && event.getTest() != null) {
+            int testNumber = event.getTestIndex() + 1;
+            progress.put("testNumber", testNumber);
+            progress.put("testsCompleted", event.getCompleted());
+            progress.put("totalTests", event.getTotal());
+            progress.put("testStatus", event.getTest().getStatus());
+            progress.put("testTimeMs", event.getTest().getExecTimeMs());
+            progress.put("testCpuTimeMs", event.getTest().getCpuTimeMs());
+            progress.put("message", "Test " + testNumber + "/" + event.getTotal() + " "
+                    + event.getTest().getStatus().toLowerCase().replace('_', ' '));
+        } else {
+            return;
+        }
+
+        sseService.sendProgress(submissionId, progress);
+    }
+
+    /**
+     * Submissions the execution backend can run at once: the routable agents'
+     * advertised slots in remote mode. 0 when unknown (local mode, or before
+     * the first agent health poll).
+     */
+    public int executionCapacity() {
+        return "remote".equalsIgnoreCase(executionMode) ? executorAgentClient.advertisedCapacity() : 0;
+    }
+
+    private record PreparedSubmission(Submission submission, Problem problem, Language language,
+                                      List<TestCase> testCases) {
+    }
+
     // Metric Getters
     public long getTotalSubmissions() { return totalSubmissions.get(); }
     public long getSuccessfulExecutions() { return successfulExecutions.get(); }
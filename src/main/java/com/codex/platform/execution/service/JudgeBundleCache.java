@@ -0,0 +1,320 @@
+package com.codex.platform.execution.service;
+
+import com.codex.platform.execution.entity.Language;
+import com.codex.platform.execution.repository.LanguageRepository;
+import com.codex.platform.problem.entity.Problem;
+import com.codex.platform.problem.entity.TestCase;
+import com.codex.platform.problem.repository.ProblemRepository;
+import com.codex.platform.problem.repository.TestCaseRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.StatusListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of what judging reads for every submission: a problem
+ * with its limits and all test cases (a {@link JudgeBundle}), and the
+ * language table. A hot problem costs no DB reads per submission.
+ *
+ * <p>Bundles are LRU-evicted once their estimated size passes
+ * {@code execution.judge-cache.max-bytes}; languages are a handful of rows
+ * and are cached whole. Entries also expire after
+ * {@code execution.judge-cache.ttl-ms} as a backstop for a missed
+ * invalidation.
+ *
+ * <p>Invalidation: {@code ProblemService}, {@code TestCaseService} and
+ * {@code LanguageService} call the {@code invalidate*} methods, which evict
+ * locally and publish on the {@value #TOPIC} Redis topic after the
+ * surrounding transaction commits; every node evicts on receipt, and clears
+ * everything when its subscription is (re)established, since messages sent
+ * while disconnected are lost.
+ *
+ * <p>Versioned: every invalidation bumps a generation counter, and a load
+ * only installs its result if no invalidation happened while it read the
+ * DB, so a slow load cannot put pre-update rows back.
+ *
+ * <p>Returned entities are shared between threads and must not be modified.
+ */
+@Component
+@Slf4j
+public class JudgeBundleCache {
+
+    static final String TOPIC = "judge-bundle-invalidation";
+    private static final String PROBLEM_PREFIX = "problem:";
+    private static final String LANGUAGES = "languages";
+    private static final String ALL = "all";
+
+    /** Judge data for one problem. {@code testCases} is immutable. */
+    public record JudgeBundle(Problem problem, List<TestCase> testCases, long bytes) {
+
+        public List<TestCase> samples() {
+            return testCases.stream().filter(tc -> Boolean.TRUE.equals(tc.getIsSample())).toList();
+        }
+    }
+
+    private record Entry<T>(T value, long loadedAtMs) {
+    }
+
+    private final ProblemRepository problemRepository;
+    private final TestCaseRepository testCaseRepository;
+    private final LanguageRepository languageRepository;
+    private final RedissonClient redissonClient;
+    private final long maxBytes;
+    private final long ttlMs;
+
+    // Guarded by this
+    private final LinkedHashMap<UUID, Entry<JudgeBundle>> bundles = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private Entry<List<Language>> languages;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private RTopic topic;
+
+    public JudgeBundleCache(ProblemRepository problemRepository,
+                            TestCaseRepository testCaseRepository,
+                            LanguageRepository languageRepository,
+                            RedissonClient redissonClient,
+                            @Value("${execution.judge-cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${execution.judge-cache.ttl-ms:600000}") long ttlMs) {
+        this.problemRepository = problemRepository;
+        this.testCaseRepository = testCaseRepository;
+        this.languageRepository = languageRepository;
+        this.redissonClient = redissonClient;
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (maxBytes <= 0) {
+            log.info("JudgeBundleCache disabled (execution.judge-cache.max-bytes <= 0)");
+            return;
+        }
+        try {
+            topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+            topic.addListener(String.class, (channel, message) -> applyInvalidation(message));
+            topic.addListener(new StatusListener() {
+                @Override
+                public void onSubscribe(String channel) {
+                    // (Re)subscribed: anything published while we were away is lost.
+                    clearLocal();
+                }
+
+                @Override
+                public void onUnsubscribe(String channel) {
+                }
+            });
+            log.info("JudgeBundleCache initialized: maxBytes={}, ttlMs={}, topic={}", maxBytes, ttlMs, TOPIC);
+        } catch (Exception e) {
+            topic = null;
+            log.warn("JudgeBundleCache: could not subscribe to {} ({}); relying on ttl-ms for freshness",
+                    TOPIC, e.getMessage());
+        }
+    }
+
+    // ───── reads ────────────────────────────────────────────────────────
+
+    /** Problem and all of its test cases; empty if the problem does not exist. */
+    public Optional<JudgeBundle> bundle(UUID problemId) {
+        Objects.requireNonNull(problemId, "Problem ID is required");
+        if (maxBytes > 0) {
+            synchronized (this) {
+                Entry<JudgeBundle> entry = bundles.get(problemId);
+                if (entry != null && !expired(entry)) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.value());
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        Optional<Problem> problem = problemRepository.findById(problemId);
+        if (problem.isEmpty()) {
+            return Optional.empty();
+        }
+        List<TestCase> testCases = List.copyOf(testCaseRepository.findByProblemId(problemId));
+        JudgeBundle bundle = new JudgeBundle(problem.get(), testCases, estimateBytes(testCases));
+
+        if (maxBytes > 0 && bundle.bytes() <= maxBytes) {
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    Entry<JudgeBundle> previous = bundles.put(problemId, new Entry<>(bundle, System.currentTimeMillis()));
+                    totalBytes += bundle.bytes() - (previous == null ? 0 : previous.value().bytes());
+                    evictToFit();
+                }
+            }
+        }
+        return Optional.of(bundle);
+    }
+
+    public Optional<Language> language(UUID languageId) {
+        Objects.requireNonNull(languageId, "Language ID is required");
+        return languages().stream().filter(l -> languageId.equals(l.getId())).findFirst();
+    }
+
+    /** Exact name match, as {@code LanguageRepository.findByName}. */
+    public Optional<Language> languageByName(String name) {
+        return languages().stream().filter(l -> l.getName().equals(name)).findFirst();
+    }
+
+    // ───── invalidation ─────────────────────────────────────────────────
+
+    /** Problem limits or test cases changed (or the problem was deleted). */
+    public void invalidateProblem(UUID problemId) {
+        if (problemId != null) {
+            invalidate(PROBLEM_PREFIX + problemId);
+        }
+    }
+
+    /** Any language was created, changed or deleted. */
+    public void invalidateLanguages() {
+        invalidate(LANGUAGES);
+    }
+
+    /** Bulk changes (catalog sync): drop everything on every node. */
+    public void invalidateAll() {
+        invalidate(ALL);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("bundles", bundles.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("subscribed", topic != null);
+        return stats;
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    /** Evicts here now and again after commit (closing the window where a load reads pre-commit rows), then broadcasts. */
+    private void invalidate(String message) {
+        applyInvalidation(message);
+        Runnable afterCommit = () -> {
+            applyInvalidation(message);
+            publish(message);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    afterCommit.run();
+                }
+            });
+        } else {
+            afterCommit.run();
+        }
+    }
+
+    private void publish(String message) {
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.publish(message);
+        } catch (Exception e) {
+            log.warn("JudgeBundleCache: failed to publish invalidation '{}': {}", message, e.getMessage());
+        }
+    }
+
+    private synchronized void applyInvalidation(String message) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        if (ALL.equals(message)) {
+            clearLocal();
+        } else if (LANGUAGES.equals(message)) {
+            languages = null;
+        } else if (message != null && message.startsWith(PROBLEM_PREFIX)) {
+            try {
+                Entry<JudgeBundle> removed = bundles.remove(UUID.fromString(message.substring(PROBLEM_PREFIX.length())));
+                if (removed != null) {
+                    totalBytes -= removed.value().bytes();
+                }
+            } catch (IllegalArgumentException bad) {
+                log.warn("JudgeBundleCache: ignoring malformed invalidation '{}'", message);
+            }
+        }
+    }
+
+    private synchronized void clearLocal() {
+        generation.incrementAndGet();
+        bundles.clear();
+        totalBytes = 0;
+        languages = null;
+    }
+
+    private List<Language> languages() {
+        if (maxBytes > 0) {
+            synchronized (this) {
+                if (languages != null && !expired(languages)) {
+                    hits.incrementAndGet();
+                    return languages.value();
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        List<Language> loaded = List.copyOf(languageRepository.findAll());
+        if (maxBytes > 0) {
+            synchronized (this) {
+                if (generation.get() == loadGeneration) {
+                    languages = new Entry<>(loaded, System.currentTimeMillis());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /** Least recently used first, until the total fits again. */
+    private void evictToFit() {
+        Iterator<Map.Entry<UUID, Entry<JudgeBundle>>> lru = bundles.entrySet().iterator();
+        while (totalBytes > maxBytes && lru.hasNext()) {
+            totalBytes -= lru.next().getValue().value().bytes();
+            lru.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private boolean expired(Entry<?> entry) {
+        return ttlMs > 0 && System.currentTimeMillis() - entry.loadedAtMs() > ttlMs;
+    }
+
+    /** UTF-16 chars of the TEXT columns plus a rough per-object overhead. */
+    private static long estimateBytes(List<TestCase> testCases) {
+        long bytes = 512;
+        for (TestCase tc : testCases) {
+            bytes += 128;
+            bytes += 2L * (tc.getInput() == null ? 0 : tc.getInput().length());
+            bytes += 2L * (tc.getExpectedOutput() == null ? 0 : tc.getExpectedOutput().length());
+        }
+        return bytes;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.UUID;
 public class LanguageService {
 
     private final LanguageRepository languageRepository;
+    private final JudgeBundleCache judgeBundleCache;
 
     @Transactional(readOnly = true)
     public List<Language> getAllLanguages() {
@@ -30,6 +31,7 @@ public class LanguageService {
 
         Language language = new Language();
         applyRequest(language, request);
+        judgeBundleCache.invalidateLanguages();
         return languageRepository.save(language);
     }
 
@@ -44,6 +46,7 @@ public class LanguageService {
         }
 
         applyRequest(language, request);
+        judgeBundleCache.invalidateLanguages();
         return languageRepository.save(language);
     }
 
@@ -54,6 +57,7 @@ public class LanguageService {
             throw new IllegalArgumentException("Language not found");
         }
         languageRepository.deleteById(languageId);
+        judgeBundleCache.invalidateLanguages();
     }
 
     private void applyRequest(Language language, LanguageRequest request) {
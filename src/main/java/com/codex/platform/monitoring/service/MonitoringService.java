@@ -1,7 +1,10 @@
 package com.codex.platform.monitoring.service;
 
+import com.codex.platform.execution.client.ExecutorAgentClient;
 import com.codex.platform.execution.service.ExecutionService;
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.queue.service.QueueService;
+import com.codex.platform.queue.worker.SubmissionWorker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +17,9 @@ public class MonitoringService {
 
     private final QueueService queueService;
     private final ExecutionService executionService;
+    private final ExecutorAgentClient executorAgentClient;
+    private final SubmissionWorker submissionWorker;
+    private final JudgeBundleCache judgeBundleCache;
 
     public Map<String, Object> getPlatformStats() {
         Map<String, Object> stats = new HashMap<>();
@@ -23,11 +29,19 @@ public class MonitoringService {
         long failed = executionService.getFailedExecutions();
         long cumulativeTime = executionService.getCumulativeExecutionTimeMs();
 
+        stats.put("queueBackend", queueService.getBackend());
         stats.put("queueDepth", queueService.getQueueDepth());
+        stats.put("queueDepthByLane", queueService.getLaneDepths());
+        stats.put("queueWaitByLane", queueService.getWaitStats());
+        stats.put("queuePendingEntries", queueService.getPendingCount());
         stats.put("totalSubmissions", total);
         stats.put("successfulExecutions", success);
         stats.put("failedExecutions", failed);
         stats.put("averageExecutionTimeMs", total > 0 ? (double) cumulativeTime / total : 0.0);
+        stats.put("executorAgents", executorAgentClient.agentStats());
+        stats.put("workerPool", submissionWorker.stats());
+        stats.put("judgeCache", judgeBundleCache.stats());
+        stats.put("agentTestData", executorAgentClient.testDataStats());
 
         return stats;
     }
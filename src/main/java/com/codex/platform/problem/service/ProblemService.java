@@ -1,5 +1,6 @@
 package com.codex.platform.problem.service;
 
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.problem.dto.ProblemDetailResponse;
 import com.codex.platform.problem.dto.ProblemRequest;
 import com.codex.platform.problem.entity.Problem;
@@ -32,6 +33,7 @@ public class ProblemService {
     private final ProblemExampleRepository exampleRepository;
     private final TestCaseRepository testCaseRepository;
     private final ObjectMapper objectMapper;
+    private final JudgeBundleCache judgeBundleCache;
 
     public Page<Problem> getAllProblems(Pageable pageable) {
         return problemRepository.findAll(Objects.requireNonNull(pageable, "Pageable is required"));
@@ -65,6 +67,7 @@ public class ProblemService {
         Problem savedProblem = problemRepository.save(problem);
         syncExamples(savedProblem.getId(), request.getExamples());
         syncTestCases(savedProblem.getId(), request.getTestCases());
+        judgeBundleCache.invalidateProblem(savedProblem.getId());
         return savedProblem;
     }
 
@@ -77,6 +80,7 @@ public class ProblemService {
         exampleRepository.deleteByProblemId(problemId);
         testCaseRepository.deleteByProblemId(problemId);
         problemRepository.deleteById(problemId);
+        judgeBundleCache.invalidateProblem(problemId);
     }
 
     public ProblemDetailResponse toDetail(Problem problem, boolean includeHiddenTestCases) {
@@ -1,5 +1,6 @@
 package com.codex.platform.problem.service;
 
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.problem.dto.TestCaseRequest;
 import com.codex.platform.problem.entity.TestCase;
 import com.codex.platform.problem.repository.ProblemRepository;
@@ -19,6 +20,7 @@ public class TestCaseService {
 
     private final TestCaseRepository testCaseRepository;
     private final ProblemRepository problemRepository;
+    private final JudgeBundleCache judgeBundleCache;
 
     public List<TestCase> getTestCasesByProblemId(UUID problemId) {
         return testCaseRepository.findByProblemId(Objects.requireNonNull(problemId, "Problem ID is required"));
@@ -48,7 +50,8 @@ public class TestCaseService {
         testCase.setInput(request.getInput());
         testCase.setExpectedOutput(request.getExpectedOutput());
         testCase.setIsSample(request.getIsSample() != null ? request.getIsSample() : false);
-        
+
+        judgeBundleCache.invalidateProblem(problemId);
         return testCaseRepository.save(testCase);
     }
 
@@ -63,21 +66,23 @@ public class TestCaseService {
             throw new IllegalArgumentException("Problem not found with ID: " + problemId);
         }
 
+        judgeBundleCache.invalidateProblem(testCase.getProblemId());
+        judgeBundleCache.invalidateProblem(problemId);
         testCase.setProblemId(problemId);
         testCase.setInput(request.getInput());
         testCase.setExpectedOutput(request.getExpectedOutput());
         testCase.setIsSample(request.getIsSample() != null ? request.getIsSample() : false);
-        
+
         return testCaseRepository.save(testCase);
     }
 
     @Transactional
     public void deleteTestCase(UUID id) {
         UUID testCaseId = Objects.requireNonNull(id, "Test case ID is required");
-        if (!testCaseRepository.existsById(testCaseId)) {
-            throw new IllegalArgumentException("Test case not found");
-        }
-        testCaseRepository.deleteById(testCaseId);
+        TestCase testCase = testCaseRepository.findById(testCaseId)
+                .orElseThrow(() -> new IllegalArgumentException("Test case not found"));
+        testCaseRepository.delete(testCase);
+        judgeBundleCache.invalidateProblem(testCase.getProblemId());
     }
 
     @Transactional
@@ -85,5 +90,6 @@ public class TestCaseService {
         UUID pid = Objects.requireNonNull(problemId, "Problem ID is required");
         List<TestCase> testCases = testCaseRepository.findByProblemId(pid);
         testCaseRepository.deleteAll(testCases);
+        judgeBundleCache.invalidateProblem(pid);
     }
 }
@@ -0,0 +1,156 @@
+package com.codex.platform.queue.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBlockingQueue;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List backend of {@link QueueService}: one queue per lane, and within a
+ * lane one list per user, served round robin.
+ *
+ * <p>Redis layout for lane {@code L} under {@code prefix}:
+ * <ul>
+ *   <li>{@code prefix:L:u:<userId>} — that user's pending entries, FIFO,
+ *   each {@code submissionId|enqueuedAtMs}</li>
+ *   <li>{@code prefix:L:users} — ring of users with pending entries; a user
+ *   is in it exactly while their list is non-empty</li>
+ *   <li>{@code prefix:L:size} — entries in the lane</li>
+ * </ul>
+ * A dequeue pops the user at the head of the ring, takes one entry from
+ * their list and puts them back at the tail if more remain: deficit round
+ * robin with a quantum of one submission, so a user with fifty queued
+ * submissions gets the same share as one with a single submission. Both
+ * sides are Lua scripts and atomic across platform instances.
+ *
+ * <p>Lists have no multi-key blocking pop, so every enqueue also pushes a
+ * token onto {@code prefix:signal}; an idle worker BLPOPs that and then
+ * makes another pass over the lanes.
+ */
+@Slf4j
+class FairListQueue {
+
+    static final String ANONYMOUS = "-";
+
+    // KEYS: users ring, user list, lane size, signal. ARGV: user, entry, signal cap.
+    private static final String PUSH_SCRIPT = """
+            if redis.call('RPUSH', KEYS[2], ARGV[2]) == 1 then
+              redis.call('RPUSH', KEYS[1], ARGV[1])
+            end
+            redis.call('INCR', KEYS[3])
+            redis.call('RPUSH', KEYS[4], '1')
+            redis.call('LTRIM', KEYS[4], -tonumber(ARGV[3]), -1)
+            return 1
+            """;
+
+    // KEYS: users ring, lane size. ARGV: user list key prefix. Returns {user, entry} or nil.
+    private static final String POP_SCRIPT = """
+            local user = redis.call('LPOP', KEYS[1])
+            if not user then return nil end
+            local key = ARGV[1] .. user
+            local entry = redis.call('LPOP', key)
+            if redis.call('LLEN', key) > 0 then
+              redis.call('RPUSH', KEYS[1], user)
+            end
+            if not entry then return nil end
+            if tonumber(redis.call('DECR', KEYS[2])) < 0 then
+              redis.call('SET', KEYS[2], 0)
+            end
+            return {user, entry}
+            """;
+
+    private static final int SIGNAL_CAP = 1024;
+
+    private final RedissonClient redissonClient;
+    private final String prefix;
+    private final LaneScheduler lanes;
+
+    FairListQueue(RedissonClient redissonClient, String prefix, LaneScheduler lanes) {
+        this.redissonClient = redissonClient;
+        this.prefix = prefix;
+        this.lanes = lanes;
+    }
+
+    void push(UUID submissionId, UUID userId, String lane, long enqueuedAtMs) {
+        String user = userId == null ? ANONYMOUS : userId.toString();
+        script().eval(RScript.Mode.READ_WRITE, PUSH_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(usersKey(lane), prefix + ":" + lane + ":u:" + user, sizeKey(lane), signalKey()),
+                user, submissionId + "|" + enqueuedAtMs, String.valueOf(SIGNAL_CAP));
+    }
+
+    /**
+     * One pass over the lanes in {@link LaneScheduler#order()}; if all are
+     * empty, waits up to {@code timeoutSec} for an enqueue signal and makes a
+     * second pass. Null when nothing arrived.
+     */
+    QueuedSubmission poll(long timeoutSec) throws InterruptedException {
+        QueuedSubmission next = pollOnce();
+        if (next != null) {
+            return next;
+        }
+        if (signal().poll(timeoutSec, TimeUnit.SECONDS) == null) {
+            return null;
+        }
+        return pollOnce();
+    }
+
+    int depth(String lane) {
+        Object size = redissonClient.getBucket(sizeKey(lane), StringCodec.INSTANCE).get();
+        return size == null ? 0 : Math.max(0, Integer.parseInt(size.toString()));
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private QueuedSubmission pollOnce() {
+        for (String lane : lanes.order()) {
+            List<Object> popped = script().eval(RScript.Mode.READ_WRITE, POP_SCRIPT, RScript.ReturnType.MULTI,
+                    List.of(usersKey(lane), sizeKey(lane)), prefix + ":" + lane + ":u:");
+            if (popped == null || popped.size() < 2) {
+                continue;
+            }
+            QueuedSubmission item = parse(lane, popped.get(0).toString(), popped.get(1).toString());
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static QueuedSubmission parse(String lane, String user, String entry) {
+        int bar = entry.indexOf('|');
+        try {
+            UUID submissionId = UUID.fromString(bar < 0 ? entry.trim() : entry.substring(0, bar));
+            long enqueuedAtMs = bar < 0 ? 0 : Long.parseLong(entry.substring(bar + 1));
+            UUID userId = ANONYMOUS.equals(user) ? null : UUID.fromString(user);
+            return new QueuedSubmission(submissionId, lane, userId, enqueuedAtMs, null, false);
+        } catch (IllegalArgumentException badEntry) {
+            log.error("Lane '{}' contained invalid entry '{}' for user {} — discarding", lane, entry, user);
+            return null;
+        }
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private RBlockingQueue<String> signal() {
+        return redissonClient.getBlockingQueue(signalKey(), StringCodec.INSTANCE);
+    }
+
+    private String usersKey(String lane) {
+        return prefix + ":" + lane + ":users";
+    }
+
+    private String sizeKey(String lane) {
+        return prefix + ":" + lane + ":size";
+    }
+
+    private String signalKey() {
+        return prefix + ":signal";
+    }
+}
@@ -0,0 +1,97 @@
+package com.codex.platform.queue.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smooth weighted round robin over the queue lanes
+ * ({@code execution.queue.lanes}, e.g. {@code priority:4,default:2,bulk:1}).
+ *
+ * <p>{@link #order()} names the lane whose turn it is first, followed by the
+ * others by weight, so a worker falls through to the next lane when the
+ * chosen one is empty and never idles while any lane has work. Over a busy
+ * period each lane gets dequeues in proportion to its weight, interleaved
+ * rather than in bursts (4:1 gives {@code a a b a a}, not {@code a a a a b}).
+ * State is per instance; every platform instance applies the same ratio.
+ */
+final class LaneScheduler {
+
+    record Lane(String name, int weight) {
+    }
+
+    private final List<Lane> lanes;
+    private final List<String> byWeight;
+    private final int totalWeight;
+    private final int[] current;
+
+    LaneScheduler(List<Lane> lanes) {
+        if (lanes.isEmpty()) {
+            throw new IllegalArgumentException("at least one queue lane is required");
+        }
+        this.lanes = List.copyOf(lanes);
+        this.byWeight = lanes.stream()
+                .sorted(Comparator.comparingInt(Lane::weight).reversed())
+                .map(Lane::name)
+                .toList();
+        this.totalWeight = lanes.stream().mapToInt(Lane::weight).sum();
+        this.current = new int[lanes.size()];
+    }
+
+    /** Parses {@code name:weight} pairs; a bare name has weight 1. Duplicate names keep the last weight. */
+    static LaneScheduler parse(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : (spec == null ? "" : spec).split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) continue;
+            int colon = trimmed.indexOf(':');
+            String name = colon < 0 ? trimmed : trimmed.substring(0, colon).trim();
+            int weight = colon < 0 ? 1 : Integer.parseInt(trimmed.substring(colon + 1).trim());
+            if (name.isEmpty() || weight < 1) {
+                throw new IllegalArgumentException("invalid queue lane '" + trimmed + "' in '" + spec + "'");
+            }
+            weights.put(name, weight);
+        }
+        List<Lane> lanes = new ArrayList<>();
+        weights.forEach((name, weight) -> lanes.add(new Lane(name, weight)));
+        return new LaneScheduler(lanes);
+    }
+
+    /** Lanes to try for the next dequeue, the one whose turn it is first. */
+    synchronized List<String> order() {
+        int best = 0;
+        for (int i = 0; i < current.length; i++) {
+            current[i] += lanes.get(i).weight();
+            if (current[i] > current[best]) {
+                best = i;
+            }
+        }
+        current[best] -= totalWeight;
+
+        String first = lanes.get(best).name();
+        List<String> order = new ArrayList<>(lanes.size());
+        order.add(first);
+        for (String name : byWeight) {
+            if (!name.equals(first)) {
+                order.add(name);
+            }
+        }
+        return order;
+    }
+
+    boolean contains(String lane) {
+        return lanes.stream().anyMatch(l -> l.name().equals(lane));
+    }
+
+    List<Lane> lanes() {
+        return lanes;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(lanes.toArray());
+    }
+}
@@ -1,28 +1,147 @@
 package com.codex.platform.queue.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
 import org.redisson.api.RBlockingQueue;
 import org.redisson.api.RLock;
+import org.redisson.api.RStream;
 import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamGroup;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
 import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Submission queue, with two Redis backends ({@code execution.queue.backend}):
+ *
+ * <ul>
+ *   <li>{@code list} (default) — weighted lanes ({@code execution.queue.lanes})
+ *   with per-user round robin inside each lane, see {@link FairListQueue} and
+ *   {@link LaneScheduler}. One entry per poll, and a per-submission
+ *   {@code RLock} in the worker against duplicate processing. A worker dying
+ *   after the pop loses the job.</li>
+ *   <li>{@code stream} — a Redis Stream with one consumer group per
+ *   deployment ({@code execution.queue.group}). Workers XREADGROUP batches,
+ *   XACK when the verdict is delivered, and XAUTOCLAIM entries another
+ *   consumer has held idle for longer than {@code execution.queue.claim-idle-ms}.
+ *   At-least-once delivery without the lock; the pending-entry list is the
+ *   record of work in progress.</li>
+ * </ul>
+ *
+ * <p>The stream backend is a single FIFO: lane and user are recorded on each
+ * entry (and in the wait-time metric) but do not affect ordering.
+ *
+ * <p>Entries left in the pre-lane {@code submission-queue} list are moved to
+ * the configured backend at startup, and the list is still drained while
+ * polling so older instances can be rolled without losing work.
+ *
+ * <p>Metrics: {@code codex.queue.depth} (gauge, per lane) and
+ * {@code codex.queue.wait} (enqueue-to-dequeue timer with histogram, per lane).
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class QueueService {
 
     private final RedissonClient redissonClient;
     private static final String QUEUE_NAME = "submission-queue";
+    private static final String STREAM_NAME = "submission-stream";
+    private static final String FIELD_SUBMISSION_ID = "submissionId";
+    private static final String FIELD_LANE = "lane";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_ENQUEUED_AT = "enqueuedAt";
     private static final String LOCK_PREFIX = "submission:";
 
-    // BLPOP timeout — blocks server-side, wakes up every 5s to check thread interruption
+    // BLPOP / XREADGROUP timeout — blocks server-side, wakes up every 5s to check thread interruption
     private static final long BLPOP_TIMEOUT_SEC = 5;
 
+    private final boolean streamBackend;
+    private final String group;
+    private final long claimIdleMs;
+    private final long claimIntervalMs;
+    private final int streamMaxLen;
+    private final LaneScheduler lanes;
+    private final String defaultLane;
+    private final FairListQueue fairQueue;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final AtomicLong lastWaitMs = new AtomicLong();
+
+    private volatile boolean groupReady;
+    private volatile StreamMessageId claimCursor = new StreamMessageId(0, 0);
+    private final AtomicLong lastClaimAtMs = new AtomicLong();
+
+    public QueueService(RedissonClient redissonClient,
+                        @Value("${execution.queue.backend:list}") String backend,
+                        @Value("${execution.queue.group:codex-platform}") String group,
+                        @Value("${execution.queue.claim-idle-ms:300000}") long claimIdleMs,
+                        @Value("${execution.queue.claim-interval-ms:30000}") long claimIntervalMs,
+                        @Value("${execution.queue.stream-max-len:100000}") int streamMaxLen,
+                        @Value("${execution.queue.lanes:default:1}") String lanes,
+                        @Value("${execution.queue.default-lane:default}") String defaultLane,
+                        MeterRegistry meterRegistry) {
+        this.redissonClient = redissonClient;
+        this.streamBackend = "stream".equalsIgnoreCase(backend);
+        this.group = group;
+        this.claimIdleMs = claimIdleMs;
+        this.claimIntervalMs = claimIntervalMs;
+        this.streamMaxLen = streamMaxLen;
+        this.lanes = LaneScheduler.parse(lanes);
+        if (!this.lanes.contains(defaultLane)) {
+            throw new IllegalArgumentException("execution.queue.default-lane '" + defaultLane
+                    + "' is not one of execution.queue.lanes " + this.lanes);
+        }
+        this.defaultLane = defaultLane;
+        this.fairQueue = new FairListQueue(redissonClient, QUEUE_NAME, this.lanes);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (streamBackend) {
+            Gauge.builder("codex.queue.depth", this, QueueService::getQueueDepth)
+                    .description("Submissions waiting in the queue")
+                    .tag("lane", "all")
+                    .register(meterRegistry);
+        } else {
+            for (LaneScheduler.Lane lane : lanes.lanes()) {
+                Gauge.builder("codex.queue.depth", this, q -> q.laneDepth(lane.name()))
+                        .description("Submissions waiting in the queue")
+                        .tag("lane", lane.name())
+                        .register(meterRegistry);
+            }
+        }
+
+        try {
+            if (streamBackend) {
+                ensureGroup();
+            }
+            migrateListBacklog();
+        } catch (Exception e) {
+            // Redis briefly unavailable at boot: the first poll retries group creation.
+            log.warn("Queue init failed ({}), will retry on first poll", e.getMessage());
+        }
+        log.info("QueueService initialized: backend={}, lanes={}, defaultLane={}", getBackend(), lanes, defaultLane);
+    }
+
     /**
      * Get a String-typed queue reference backed by raw bytes (no JSON wrapping).
      *
@@ -37,47 +156,167 @@ public class QueueService {
         return redissonClient.getBlockingQueue(QUEUE_NAME, StringCodec.INSTANCE);
     }
 
+    /** Raw-string stream, for the same reason {@link #queue()} uses {@link StringCodec}. */
+    private RStream<String, String> stream() {
+        return redissonClient.getStream(STREAM_NAME, StringCodec.INSTANCE);
+    }
+
+    /** Whether the worker must take {@link #acquireLock} around a delivery (list backend only). */
+    public boolean requiresLock() {
+        return !streamBackend;
+    }
+
     /**
-     * Enqueue a submission for processing.
+     * Enqueue a submission for processing on the default lane, without an owner.
      */
     public void enqueue(UUID submissionId) {
-        RBlockingQueue<String> q = queue();
-        boolean offered = q.offer(submissionId.toString());
-        log.info("Enqueued submission: {} (offered={}, queue depth={})",
-                submissionId, offered, q.size());
-        if (!offered) {
-            log.error("Queue rejected submission {} — possible capacity issue!", submissionId);
-            throw new IllegalStateException("Queue rejected submission " + submissionId + " — enqueue failed");
+        enqueue(submissionId, null, defaultLane);
+    }
+
+    /**
+     * Enqueue a user's submission on the default lane.
+     */
+    public void enqueue(UUID submissionId, UUID userId) {
+        enqueue(submissionId, userId, defaultLane);
+    }
+
+    /**
+     * Enqueue a submission for processing. {@code userId} is the fairness key
+     * within the lane (null shares one anonymous bucket); an unknown
+     * {@code lane} falls back to the default lane.
+     */
+    public void enqueue(UUID submissionId, UUID userId, String lane) {
+        if (lane == null || !lanes.contains(lane)) {
+            if (lane != null) {
+                log.warn("Unknown queue lane '{}' for submission {}, using '{}'", lane, submissionId, defaultLane);
+            }
+            lane = defaultLane;
+        }
+        push(submissionId, userId, lane, System.currentTimeMillis());
+    }
+
+    /**
+     * Put a delivery back (e.g. its lock was busy), keeping its lane, user and
+     * original enqueue time. It goes to the back of its user's list.
+     */
+    public void requeue(QueuedSubmission item) {
+        push(item.submissionId(), item.userId(), lanes.contains(item.lane()) ? item.lane() : defaultLane,
+                item.enqueuedAtMs() > 0 ? item.enqueuedAtMs() : System.currentTimeMillis());
+    }
+
+    private void push(UUID submissionId, UUID userId, String lane, long enqueuedAtMs) {
+        if (streamBackend) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put(FIELD_SUBMISSION_ID, submissionId.toString());
+            fields.put(FIELD_LANE, lane);
+            fields.put(FIELD_USER_ID, userId == null ? FairListQueue.ANONYMOUS : userId.toString());
+            fields.put(FIELD_ENQUEUED_AT, String.valueOf(enqueuedAtMs));
+            StreamMessageId id = stream().add(StreamAddArgs.entries(fields)
+                    .trimNonStrict().maxLen(streamMaxLen).noLimit());
+            log.info("Enqueued submission: {} (lane={}, user={}, stream entry {})", submissionId, lane, userId, id);
+            return;
         }
+        fairQueue.push(submissionId, userId, lane, enqueuedAtMs);
+        log.info("Enqueued submission: {} (lane={}, user={})", submissionId, lane, userId);
     }
 
     /**
-     * BLPOP — blocks server-side until item arrives or timeout expires.
-     * No busy-loop, no missed items on latency spikes.
-     * Returns UUID or null if timeout elapsed with no item.
+     * Next deliveries for {@code consumer}, blocking up to 5s server-side;
+     * empty on timeout. The list backend returns at most one entry. The
+     * stream backend first reclaims up to {@code max} entries idle past the
+     * lease (at most every {@code execution.queue.claim-interval-ms}), then
+     * reads up to {@code max} new ones. Stream entries must be passed to
+     * {@link #acknowledge} once handled.
      */
-    public UUID dequeue() throws InterruptedException {
-        RBlockingQueue<String> q = queue();
+    public List<QueuedSubmission> poll(String consumer, int max) throws InterruptedException {
+        if (!streamBackend) {
+            QueuedSubmission item = dequeue();
+            if (item == null) {
+                return List.of();
+            }
+            recordWait(item);
+            return List.of(item);
+        }
+
         try {
-            String raw = q.poll(BLPOP_TIMEOUT_SEC, TimeUnit.SECONDS);
-            if (raw != null && !raw.isBlank()) {
-                UUID result = UUID.fromString(raw.trim());
-                log.info("Queue hit: {} dequeued", result);
-                return result;
+            ensureGroup();
+            List<QueuedSubmission> reclaimed = reclaim(consumer, max);
+            if (!reclaimed.isEmpty()) {
+                return reclaimed;
             }
-            return null;
-        } catch (IllegalArgumentException badUuid) {
-            log.error("Queue contained invalid UUID '{}' — discarding", badUuid.getMessage());
-            return null;
+
+            Map<StreamMessageId, Map<String, String>> entries = stream().readGroup(group, consumer,
+                    StreamReadGroupArgs.neverDelivered()
+                            .count(Math.max(1, max))
+                            .timeout(Duration.ofSeconds(BLPOP_TIMEOUT_SEC)));
+            List<QueuedSubmission> delivered = toDeliveries(entries, false);
+            delivered.forEach(this::recordWait);
+            return delivered;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("interrupted during XREADGROUP");
+            }
+            log.warn("Queue XREADGROUP failed: {} — backing off 5s", e.getMessage());
+            Thread.sleep(5_000);
+            return List.of();
+        }
+    }
+
+    /** XACK a handled stream entry. No-op on the list backend. */
+    public void acknowledge(QueuedSubmission delivery) {
+        if (!streamBackend || delivery.messageId() == null) {
+            return;
+        }
+        try {
+            stream().ack(group, parseId(delivery.messageId()));
+        } catch (Exception e) {
+            // Unacked entries are reclaimed after the lease and re-run: at-least-once.
+            log.warn("XACK failed for submission {} ({}): {}", delivery.submissionId(), delivery.messageId(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Next entry by lane weight and per-user round robin, waiting up to 5s
+     * for an enqueue when every lane is empty. Null on timeout.
+     */
+    private QueuedSubmission dequeue() throws InterruptedException {
+        try {
+            UUID legacy = pollLegacy();
+            if (legacy != null) {
+                return new QueuedSubmission(legacy, defaultLane, null, 0, null, false);
+            }
+            QueuedSubmission item = fairQueue.poll(BLPOP_TIMEOUT_SEC);
+            if (item != null) {
+                log.info("Queue hit: {} dequeued (lane={}, user={})", item.submissionId(), item.lane(), item.userId());
+            }
+            return item;
         } catch (InterruptedException ie) {
             throw ie;
         } catch (Exception e) {
-            log.warn("Queue BLPOP failed: {} — backing off 5s", e.getMessage());
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("interrupted during dequeue");
+            }
+            log.warn("Queue dequeue failed: {} — backing off 5s", e.getMessage());
             Thread.sleep(5_000);
             return null;
         }
     }
 
+    /** Non-blocking pop from the pre-lane list, which instances on an older build may still be filling. */
+    private UUID pollLegacy() {
+        String raw = queue().poll();
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(raw.trim());
+        } catch (IllegalArgumentException badUuid) {
+            log.error("Queue contained invalid UUID '{}' — discarding", raw);
+            return null;
+        }
+    }
+
     /**
      * Acquire a distributed lock for a submission.
      * Returns null if lock cannot be acquired.
@@ -112,9 +351,203 @@ public class QueueService {
     }
 
     /**
-     * Current queue depth — useful for health checks.
+     * Release a lock acquired by another thread ({@code ownerThreadId}) — used
+     * when a submission finishes on a different thread than the worker that
+     * locked it. Fire-and-forget; the lease time still bounds a lost unlock.
+     */
+    public void releaseLock(RLock lock, long ownerThreadId) {
+        if (lock != null) {
+            lock.unlockAsync(ownerThreadId).whenComplete((v, e) -> {
+                if (e != null) {
+                    log.debug("Async lock release failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Current queue depth — useful for health checks. On the stream backend,
+     * entries not yet delivered to any consumer (the group's lag).
      */
     public int getQueueDepth() {
-        return queue().size();
+        if (streamBackend) {
+            StreamGroup info = groupInfo();
+            return info == null ? 0 : info.getLag();
+        }
+        int depth = queue().size();
+        for (LaneScheduler.Lane lane : lanes.lanes()) {
+            depth += fairQueue.depth(lane.name());
+        }
+        return depth;
+    }
+
+    /** Waiting submissions per lane (list backend); the stream backend reports its total under "all". */
+    public Map<String, Integer> getLaneDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        if (streamBackend) {
+            depths.put("all", getQueueDepth());
+            return depths;
+        }
+        for (LaneScheduler.Lane lane : lanes.lanes()) {
+            depths.put(lane.name(), fairQueue.depth(lane.name()));
+        }
+        return depths;
+    }
+
+    /** Queue wait of the most recently dequeued submission, in milliseconds (0 before the first). */
+    public long getLastWaitMs() {
+        return lastWaitMs.get();
+    }
+
+    /** Enqueue-to-dequeue wait per lane: count, mean, max and p50/p95/p99 in milliseconds. */
+    public Map<String, Map<String, Object>> getWaitStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        waitTimers.forEach((lane, timer) -> {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("count", timer.count());
+            laneStats.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+            laneStats.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile p : timer.takeSnapshot().percentileValues()) {
+                laneStats.put("p" + Math.round(p.percentile() * 100) + "Ms", p.value(TimeUnit.MILLISECONDS));
+            }
+            stats.put(lane, laneStats);
+        });
+        return stats;
+    }
+
+    /** Delivered but not yet acknowledged stream entries (in progress or orphaned); 0 on the list backend. */
+    public long getPendingCount() {
+        if (!streamBackend) {
+            return 0;
+        }
+        try {
+            return stream().getPendingInfo(group).getTotal();
+        } catch (Exception e) {
+            log.debug("XPENDING failed: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    public String getBackend() {
+        return streamBackend ? "stream" : "list";
+    }
+
+    // ───── helpers ──────────────────────────────────────────────────────
+
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            // From the start of the stream, so entries added before the group existed are delivered.
+            stream().createGroup(StreamCreateGroupArgs.name(group).id(StreamMessageId.ALL).makeStream());
+            log.info("Created consumer group '{}' on {}", group, STREAM_NAME);
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    /** Moves entries left in the pre-lane list onto the default lane (or the stream). */
+    private void migrateListBacklog() {
+        int moved = 0;
+        UUID submissionId;
+        while ((submissionId = pollLegacy()) != null) {
+            enqueue(submissionId);
+            moved++;
+        }
+        if (moved > 0) {
+            log.info("Moved {} queued submission(s) from {} to the {} backend", moved, QUEUE_NAME, getBackend());
+        }
+    }
+
+    private int laneDepth(String lane) {
+        try {
+            return fairQueue.depth(lane);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void recordWait(QueuedSubmission item) {
+        if (item.enqueuedAtMs() <= 0) {
+            return;
+        }
+        long waitMs = Math.max(0, System.currentTimeMillis() - item.enqueuedAtMs());
+        lastWaitMs.set(waitMs);
+        waitTimers.computeIfAbsent(item.lane(), lane -> Timer.builder("codex.queue.wait")
+                        .description("Time from enqueue to dequeue")
+                        .tag("lane", lane)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(waitMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** XAUTOCLAIM, walking the pending-entry list with a shared cursor across calls. */
+    private List<QueuedSubmission> reclaim(String consumer, int max) {
+        long now = System.currentTimeMillis();
+        long last = lastClaimAtMs.get();
+        if (now - last < claimIntervalMs || !lastClaimAtMs.compareAndSet(last, now)) {
+            return List.of();
+        }
+
+        AutoClaimResult<String, String> result = stream().autoClaim(group, consumer, claimIdleMs,
+                TimeUnit.MILLISECONDS, claimCursor, Math.max(1, max));
+        StreamMessageId next = result.getNextId();
+        claimCursor = next == null ? new StreamMessageId(0, 0) : next;
+        if (next != null && next.getId0() != 0) {
+            lastClaimAtMs.set(0);       // more of the PEL left to scan: allow the next poll to continue
+        }
+
+        List<QueuedSubmission> reclaimed = toDeliveries(result.getMessages(), true);
+        if (!reclaimed.isEmpty()) {
+            log.warn("Consumer {} reclaimed {} submission(s) idle for over {}ms: {}", consumer, reclaimed.size(),
+                    claimIdleMs, reclaimed.stream().map(QueuedSubmission::submissionId).toList());
+        }
+        return reclaimed;
+    }
+
+    private List<QueuedSubmission> toDeliveries(Map<StreamMessageId, Map<String, String>> entries, boolean reclaimed) {
+        if (entries == null || entries.isEmpty()) {
+            return List.of();
+        }
+        List<QueuedSubmission> deliveries = new ArrayList<>(entries.size());
+        for (Map.Entry<StreamMessageId, Map<String, String>> entry : entries.entrySet()) {
+            Map<String, String> fields = entry.getValue() == null ? Map.of() : entry.getValue();
+            String raw = fields.get(FIELD_SUBMISSION_ID);
+            try {
+                String user = fields.get(FIELD_USER_ID);
+                deliveries.add(new QueuedSubmission(UUID.fromString(raw.trim()),
+                        fields.getOrDefault(FIELD_LANE, defaultLane),
+                        user == null || FairListQueue.ANONYMOUS.equals(user) ? null : UUID.fromString(user),
+                        Long.parseLong(fields.getOrDefault(FIELD_ENQUEUED_AT, "0")),
+                        entry.getKey().toString(), reclaimed));
+            } catch (RuntimeException badEntry) {
+                // Deleted (trimmed) or malformed entry: ack it so it leaves the PEL.
+                log.error("Stream entry {} has no valid submissionId ('{}') — discarding", entry.getKey(), raw);
+                stream().ack(group, entry.getKey());
+            }
+        }
+        return deliveries;
+    }
+
+    private static StreamMessageId parseId(String id) {
+        int dash = id.indexOf('-');
+        return new StreamMessageId(Long.parseLong(id.substring(0, dash)), Long.parseLong(id.substring(dash + 1)));
+    }
+
+    private StreamGroup groupInfo() {
+        try {
+            return stream().listGroups().stream()
+                    .filter(g -> group.equals(g.getName()))
+                    .findFirst()
+                    .orElse(null);
+        } catch (Exception e) {
+            log.debug("XINFO GROUPS failed: {}", e.getMessage());
+            return null;
+        }
     }
 }
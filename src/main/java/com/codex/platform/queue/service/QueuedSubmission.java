@@ -0,0 +1,15 @@
+package com.codex.platform.queue.service;
+
+import java.util.UUID;
+
+/**
+ * One delivery from {@link QueueService#poll}. {@code lane} and
+ * {@code userId} are what it was enqueued with ({@code userId} may be null),
+ * {@code enqueuedAtMs} is 0 for entries written before it was recorded.
+ * {@code messageId} is the Redis Stream entry id to acknowledge (null on the
+ * list backend); {@code reclaimed} marks an entry taken over from a consumer
+ * that held it past the lease.
+ */
+public record QueuedSubmission(UUID submissionId, String lane, UUID userId, long enqueuedAtMs,
+                               String messageId, boolean reclaimed) {
+}
@@ -2,6 +2,7 @@ package com.codex.platform.queue.worker;
 
 import com.codex.platform.execution.service.ExecutionService;
 import com.codex.platform.queue.service.QueueService;
+import com.codex.platform.queue.service.QueuedSubmission;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -10,10 +11,41 @@ import org.redisson.api.RLock;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pulls submissions off {@link QueueService} and runs them.
+ *
+ * <p>Blocking mode: an elastic pool of worker threads, each running one
+ * submission at a time. {@code execution.worker-count} workers always run;
+ * a scaler adds workers while more submissions are waiting than there are
+ * idle workers, or while the last one waited longer than
+ * {@code execution.workers.scale-up-wait-ms}. The ceiling is
+ * {@code execution.workers.max}, lowered in remote mode to the execution
+ * slots the routable agents advertise. Workers idle for
+ * {@code execution.workers.idle-ms}, or above a lowered ceiling, retire.
+ *
+ * <p>Async dispatch: {@code execution.worker-count} workers feed
+ * non-blocking executions, and the elastic part is the in-flight limit,
+ * which follows the agents' advertised capacity up to
+ * {@code execution.max-in-flight}.
+ *
+ * <p>Shutdown drains: workers stop taking new submissions, running ones
+ * (and async executions) get {@code execution.workers.drain-timeout-ms}
+ * to finish before the stragglers are interrupted.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -21,95 +53,411 @@ public class SubmissionWorker {
 
     private final QueueService queueService;
     private final ExecutionService executionService;
-    private final List<Thread> workerThreads = new ArrayList<>();
 
+    /** Workers that always run (the pool's floor). */
     @Value("${execution.worker-count:1}")
     private int workerCount;
 
+    /** Blocking mode: most workers the pool grows to. */
+    @Value("${execution.workers.max:8}")
+    private int maxWorkers;
+
+    @Value("${execution.workers.idle-ms:30000}")
+    private long idleMs;
+
+    @Value("${execution.workers.scale-interval-ms:1000}")
+    private long scaleIntervalMs;
+
+    @Value("${execution.workers.scale-up-wait-ms:2000}")
+    private long scaleUpWaitMs;
+
+    @Value("${execution.workers.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    /**
+     * Async dispatch only: submissions running on the agents at once across
+     * all workers. A worker stops dequeuing while all permits are taken.
+     */
+    @Value("${execution.max-in-flight:16}")
+    private int maxInFlight;
+
+    /**
+     * Stream backend with async dispatch: entries read per poll, capped by
+     * the free in-flight permits.
+     */
+    @Value("${execution.queue.batch-size:8}")
+    private int batchSize;
+
+    private final Map<Integer, Worker> workers = new ConcurrentSkipListMap<>();
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final AtomicInteger asyncInFlight = new AtomicInteger();
+    private final AtomicLong spawned = new AtomicLong();
+    private final AtomicLong retired = new AtomicLong();
+    private final String consumerPrefix = consumerPrefix();
+
+    private boolean asyncDispatch;
+    private InFlightLimit inFlight;
+    private ScheduledExecutorService scaler;
+    private volatile boolean stopping;
+
     /**
      * Start workers on application startup
      */
     @PostConstruct
     public void start() {
+        asyncDispatch = executionService.isAsyncDispatchEnabled();
+        workerCount = Math.max(1, workerCount);
+        inFlight = new InFlightLimit(Math.max(1, maxInFlight));
+
         for (int w = 0; w < workerCount; w++) {
-            final int workerId = w + 1;
-            Thread workerThread = new Thread(() -> {
-                log.info("Submission worker-{} started", workerId);
+            spawn();
+        }
+
+        scaler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "submission-worker-scaler");
+            t.setDaemon(true);
+            return t;
+        });
+        scaler.scheduleWithFixedDelay(this::scale, scaleIntervalMs, scaleIntervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("Started {} submission workers{}", workerCount, asyncDispatch
+                ? " (async dispatch, max " + maxInFlight + " in flight)"
+                : " (elastic up to " + Math.max(workerCount, maxWorkers) + ")");
+    }
 
-                while (!Thread.currentThread().isInterrupted()) {
-                    RLock lock = null;
-                    UUID submissionId = null;
+    /** Pool state for {@code /api/monitoring/stats}. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", asyncDispatch ? "async-dispatch" : "blocking");
+        stats.put("workers", workers.size());
+        stats.put("busyWorkers", busyWorkers.get());
+        stats.put("minWorkers", workerCount);
+        stats.put("ceiling", asyncDispatch ? workerCount : workerCeiling());
+        stats.put("agentCapacity", executionService.executionCapacity());
+        stats.put("spawned", spawned.get());
+        stats.put("retired", retired.get());
+        if (asyncDispatch) {
+            stats.put("inFlight", asyncInFlight.get());
+            stats.put("inFlightLimit", inFlight.limit());
+        }
+        stats.put("parallelism", asyncDispatch ? asyncInFlight.get() : busyWorkers.get());
+        return stats;
+    }
+
+    // ───── pool ─────────────────────────────────────────────────────────
+
+    private synchronized void spawn() {
+        int id = 1;
+        while (workers.containsKey(id)) {
+            id++;       // reuse the lowest free id: stream consumer names stay bounded
+        }
+        Worker worker = new Worker(id);
+        workers.put(id, worker);
+        spawned.incrementAndGet();
+        worker.thread.start();
+    }
+
+    /** Removes the worker from the pool if it is surplus; the caller must then exit. */
+    private synchronized boolean retireIfSurplus(Worker worker, boolean idle) {
+        int size = workers.size();
+        if (size <= workerCount || !(idle || size > workerCeiling())) {
+            return false;
+        }
+        workers.remove(worker.id);
+        retired.incrementAndGet();
+        log.info("Submission worker-{} retiring ({}), {} left", worker.id, idle ? "idle" : "above ceiling", size - 1);
+        return true;
+    }
+
+    private void scale() {
+        if (stopping) {
+            return;
+        }
+        try {
+            if (asyncDispatch) {
+                int capacity = executionService.executionCapacity();
+                inFlight.resize(capacity > 0 ? Math.min(capacity, Math.max(1, maxInFlight)) : Math.max(1, maxInFlight));
+                return;
+            }
+
+            int ceiling = workerCeiling();
+            int current = workers.size();
+            if (current >= ceiling) {
+                return;
+            }
+            int depth = queueService.getQueueDepth();
+            int idle = current - busyWorkers.get();
+            boolean backlog = depth > idle;
+            boolean slow = depth > 0 && queueService.getLastWaitMs() >= scaleUpWaitMs;
+            if (backlog || slow) {
+                int add = Math.min(ceiling - current, Math.max(1, depth - idle));
+                log.info("Queue depth {} with {} idle worker(s): adding {} (ceiling {})", depth, idle, add, ceiling);
+                for (int i = 0; i < add; i++) {
+                    spawn();
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Worker scaling skipped: {}", e.getMessage());
+        }
+    }
+
+    private int workerCeiling() {
+        int capacity = executionService.executionCapacity();
+        int ceiling = capacity > 0 ? Math.min(maxWorkers, capacity) : maxWorkers;
+        return Math.max(workerCount, ceiling);
+    }
+
+    private final class Worker implements Runnable {
+        final int id;
+        final Thread thread;
+        /** Waiting for a permit or a delivery — safe to interrupt on shutdown. */
+        boolean waiting;
+
+        Worker(int id) {
+            this.id = id;
+            this.thread = new Thread(this, "submission-worker-" + id);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            log.info("Submission worker-{} started", id);
+            String consumer = consumerPrefix + "-w" + id;
+            long idleSince = System.currentTimeMillis();
+
+            try {
+                while (!stopping && !Thread.currentThread().isInterrupted()) {
+                    List<QueuedSubmission> batch = List.of();
+                    int permits = 0;
 
                     try {
-                        // BLPOP — blocks up to 5s server-side, returns null on timeout
-                        submissionId = queueService.dequeue();
-                        if (submissionId == null) continue;
-
-                        log.info("Worker-{} dequeued: {}", workerId, submissionId);
-
-                        // Acquire distributed lock to prevent duplicate processing
-                        lock = queueService.acquireLock(submissionId);
-                        if (lock != null) {
-                            log.info("Worker-{} starting execution for {}", workerId, submissionId);
-                            executionService.executeSubmission(submissionId);
-                            log.info("Worker-{} finished execution for {}", workerId, submissionId);
-                        } else {
-                            log.warn("Worker-{} could not acquire lock for {}, re-queuing", workerId, submissionId);
-                            queueService.enqueue(submissionId);
+                        setWaiting(true);
+                        if (asyncDispatch) {
+                            inFlight.acquire();
+                            permits = 1;
+                            // Batch only as far as there is room in flight.
+                            while (permits < batchSize && inFlight.tryAcquire()) {
+                                permits++;
+                            }
+                        }
+
+                        // Blocks up to 5s server-side, empty on timeout
+                        batch = queueService.poll(consumer, asyncDispatch ? permits : 1);
+                        setWaiting(false);
+                        if (batch.isEmpty()) {
+                            if (System.currentTimeMillis() - idleSince >= idleMs && retireIfSurplus(this, true)) {
+                                break;
+                            }
+                            continue;
+                        }
+
+                        busyWorkers.incrementAndGet();
+                        try {
+                            for (QueuedSubmission item : batch) {
+                                if (process(id, item, asyncDispatch)) {
+                                    permits--;
+                                }
+                            }
+                        } finally {
+                            busyWorkers.decrementAndGet();
+                        }
+                        idleSince = System.currentTimeMillis();
+                        if (retireIfSurplus(this, false)) {
+                            break;
                         }
 
                     } catch (InterruptedException e) {
-                        log.info("Worker-{} interrupted, shutting down", workerId);
+                        if (!stopping) {
+                            log.info("Worker-{} interrupted, shutting down", id);
+                        }
                         Thread.currentThread().interrupt();
                         break;
                     } catch (Throwable t) {
                         log.error("CRITICAL: Worker-{} unhandled error for {}: {}",
-                                workerId, submissionId, t.getMessage(), t);
+                                id, batch.stream().map(QueuedSubmission::submissionId).toList(),
+                                t.getMessage(), t);
                         try { Thread.sleep(5_000); } catch (InterruptedException ie) {
                             Thread.currentThread().interrupt();
                             break;
                         }
                     } finally {
-                        if (lock != null) {
-                            try { queueService.releaseLock(lock); }
-                            catch (Exception e) { log.debug("Lock release failed: {}", e.getMessage()); }
+                        setWaiting(false);
+                        if (permits > 0) {
+                            inFlight.release(permits);
                         }
                     }
                 }
+            } finally {
+                workers.remove(id, this);
+                log.info("Submission worker-{} stopped", id);
+            }
+        }
+
+        /**
+         * Flips the flag under the worker's monitor, which {@link #stop()}
+         * holds while interrupting. An interrupt that raced with a delivery
+         * is cleared, so a submission already taken still runs to the end.
+         */
+        private synchronized void setWaiting(boolean value) {
+            waiting = value;
+            if (!value) {
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void interruptIfWaiting() {
+            if (waiting) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /** Semaphore whose limit the scaler moves with agent capacity; permits above a lowered limit drain. */
+    private static final class InFlightLimit extends Semaphore {
+        private int limit;
+
+        InFlightLimit(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        synchronized void resize(int newLimit) {
+            int delta = newLimit - limit;
+            if (delta > 0) {
+                release(delta);
+            } else if (delta < 0) {
+                reducePermits(-delta);
+            }
+            if (delta != 0) {
+                log.info("In-flight limit {} -> {}", limit, newLimit);
+            }
+            limit = newLimit;
+        }
+
+        synchronized int limit() {
+            return limit;
+        }
+    }
 
-                log.info("Submission worker-{} stopped", workerId);
-            });
+    // ───── execution ────────────────────────────────────────────────────
 
-            workerThread.setName("submission-worker-" + workerId);
-            workerThread.setDaemon(true);
-            workerThread.start();
-            workerThreads.add(workerThread);
+    /**
+     * Runs or dispatches one delivery. On the list backend it is guarded by
+     * the per-submission lock; stream deliveries are owned by this consumer
+     * until acknowledged, so they need none. Returns true when the delivery
+     * was handed to {@link #dispatchAsync}, which then owns its permit.
+     */
+    private boolean process(int workerId, QueuedSubmission item, boolean asyncDispatch) {
+        UUID submissionId = item.submissionId();
+        log.info("Worker-{} dequeued: {} (lane={}){}", workerId, submissionId, item.lane(),
+                item.reclaimed() ? " (reclaimed)" : "");
+
+        RLock lock = null;
+        if (queueService.requiresLock()) {
+            // Acquire distributed lock to prevent duplicate processing
+            lock = queueService.acquireLock(submissionId);
+            if (lock == null) {
+                log.warn("Worker-{} could not acquire lock for {}, re-queuing", workerId, submissionId);
+                queueService.requeue(item);
+                return false;
+            }
+        }
+
+        if (asyncDispatch) {
+            dispatchAsync(workerId, item, lock);
+            return true;
         }
 
-        log.info("Started {} submission workers", workerCount);
+        try {
+            log.info("Worker-{} starting execution for {}", workerId, submissionId);
+            executionService.executeSubmission(submissionId);
+            queueService.acknowledge(item);
+            log.info("Worker-{} finished execution for {}", workerId, submissionId);
+        } finally {
+            if (lock != null) {
+                try { queueService.releaseLock(lock); }
+                catch (Exception e) { log.debug("Lock release failed: {}", e.getMessage()); }
+            }
+        }
+        return false;
     }
 
     /**
-     * Gracefully stop all workers on application shutdown
+     * Hand a submission to {@link ExecutionService#executeSubmissionAsync}.
+     * The delivery is acknowledged and the lock (list backend) and in-flight
+     * permit released when it completes, on whichever thread that happens.
+     */
+    private void dispatchAsync(int workerId, QueuedSubmission item, RLock lock) {
+        UUID submissionId = item.submissionId();
+        long ownerThreadId = Thread.currentThread().getId();
+        log.info("Worker-{} dispatching {} (async)", workerId, submissionId);
+        CompletableFuture<Void> execution;
+        try {
+            asyncInFlight.incrementAndGet();
+            execution = executionService.executeSubmissionAsync(submissionId);
+        } catch (RuntimeException e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        execution.whenComplete((v, error) -> {
+            if (error != null) {
+                log.error("Async execution of {} failed: {}", submissionId, error.getMessage(), error);
+            } else {
+                queueService.acknowledge(item);
+                log.info("Finished execution for {} (async)", submissionId);
+            }
+            if (lock != null) {
+                queueService.releaseLock(lock, ownerThreadId);
+            }
+            asyncInFlight.decrementAndGet();
+            inFlight.release();
+        });
+    }
+
+    /** Consumer-group member name: unique per host, stable across restarts so pending entries are kept. */
+    private static String consumerPrefix() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "worker-" + ProcessHandle.current().pid();
+        }
+    }
+
+    /**
+     * Drain on application shutdown: stop taking new submissions, give
+     * running ones {@code execution.workers.drain-timeout-ms}, then interrupt.
      */
     @PreDestroy
     public void stop() {
-        log.info("Shutting down {} submission workers...", workerThreads.size());
-
-        // Interrupt all worker threads
-        for (Thread thread : workerThreads) {
-            thread.interrupt();
+        stopping = true;
+        if (scaler != null) {
+            scaler.shutdownNow();
         }
+        log.info("Draining {} submission workers ({} busy, {} async in flight)...",
+                workers.size(), busyWorkers.get(), asyncInFlight.get());
 
-        // Wait for all threads to finish (max 10 seconds)
-        for (Thread thread : workerThreads) {
-            try {
-                thread.join(10_000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        // Wake workers blocked on a permit or BLPOP; busy ones exit after their current submission
+        List<Worker> draining = List.copyOf(workers.values());
+        draining.forEach(Worker::interruptIfWaiting);
+
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        try {
+            for (Worker worker : draining) {
+                worker.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
             }
+            while (asyncInFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
 
-        log.info("All submission workers stopped");
+        long stragglers = draining.stream().filter(w -> w.thread.isAlive()).count();
+        if (stragglers > 0 || asyncInFlight.get() > 0) {
+            log.warn("Drain timed out: interrupting {} worker(s), {} async execution(s) still in flight",
+                    stragglers, asyncInFlight.get());
+            draining.forEach(w -> w.thread.interrupt());
+        } else {
+            log.info("All submission workers stopped");
+        }
     }
 }
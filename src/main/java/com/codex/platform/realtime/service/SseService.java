@@ -64,18 +64,24 @@ public class SseService {
         sendEvent(submissionId, status, null);
     }
 
+    /**
+     * Send an intermediate progress event while the submission is RUNNING, e.g.
+     * "compiled" or "test 7/30 passed". The frontend receives
+     * { status: "RUNNING", ...progress } on the same "status" event, so clients
+     * that only look at {@code status} keep working unchanged.
+     */
+    public void sendProgress(UUID submissionId, Map<String, Object> progress) {
+        Map<String, Object> payload = new HashMap<>(progress);
+        payload.put("status", SubmissionStatus.RUNNING.toString());
+        dispatch(submissionId, SubmissionStatus.RUNNING, payload);
+    }
+
     /**
      * Send an event with full result payload as JSON.
-     * The frontend receives: { status, stdout, stderr, testsPassed, totalTests, executionTimeMs }
+     * The frontend receives: { status, stdout, stderr, testsPassed, totalTests, executionTimeMs,
+     * memoryUsedMb, cpuTimeMs }
      */
     public void sendEvent(UUID submissionId, SubmissionStatus status, SubmissionResult result) {
-        List<SseEmitter> emitterList = emitters.get(submissionId);
-
-        if (emitterList == null || emitterList.isEmpty()) {
-            log.debug("No SSE subscribers for submission {}, skipping event dispatch", submissionId);
-            return;
-        }
-
         // Build JSON payload
         Map<String, Object> payload = new HashMap<>();
         payload.put("status", Objects.requireNonNull(status, "Submission status is required").toString());
@@ -86,6 +92,19 @@ public class SseService {
             payload.put("testsPassed", result.getPassedTestCases());
             payload.put("totalTests", result.getTotalTestCases());
             payload.put("executionTimeMs", result.getExecutionTimeMs());
+            payload.put("memoryUsedMb", result.getMemoryUsedMb());
+            payload.put("cpuTimeMs", result.getCpuTimeMs());
+        }
+
+        dispatch(submissionId, status, payload);
+    }
+
+    private void dispatch(UUID submissionId, SubmissionStatus status, Map<String, Object> payload) {
+        List<SseEmitter> emitterList = emitters.get(submissionId);
+
+        if (emitterList == null || emitterList.isEmpty()) {
+            log.debug("No SSE subscribers for submission {}, skipping event dispatch", submissionId);
+            return;
         }
 
         String json;
@@ -4,11 +4,9 @@ import com.codex.platform.execution.client.ExecutorAgentClient;
 import com.codex.platform.execution.client.dto.ExecuteRequest;
 import com.codex.platform.execution.client.dto.ExecuteResponse;
 import com.codex.platform.execution.entity.Language;
-import com.codex.platform.execution.repository.LanguageRepository;
+import com.codex.platform.execution.service.JudgeBundleCache;
 import com.codex.platform.problem.entity.Problem;
 import com.codex.platform.problem.entity.TestCase;
-import com.codex.platform.problem.repository.ProblemRepository;
-import com.codex.platform.problem.repository.TestCaseRepository;
 import com.codex.platform.run.dto.RunCodeRequest;
 import com.codex.platform.run.dto.RunCodeResponse;
 import lombok.RequiredArgsConstructor;
@@ -26,23 +24,21 @@ import java.util.UUID;
 @Slf4j
 public class RunService {
 
-    private final ProblemRepository problemRepository;
-    private final LanguageRepository languageRepository;
-    private final TestCaseRepository testCaseRepository;
+    private final JudgeBundleCache judgeBundleCache;
     private final ExecutorAgentClient executorAgentClient;
 
     @Value("${execution.mode:local}")
     private String executionMode;
 
     public RunCodeResponse run(RunCodeRequest request) {
-        Problem problem = problemRepository.findById(request.getProblemId())
+        JudgeBundleCache.JudgeBundle bundle = judgeBundleCache.bundle(request.getProblemId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Problem not found"));
+        Problem problem = bundle.problem();
 
-        Language language = languageRepository.findById(request.getLanguageId())
+        Language language = judgeBundleCache.language(request.getLanguageId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Language not found"));
 
-        List<TestCase> sampleCases = testCaseRepository
-                .findByProblemIdAndIsSample(request.getProblemId(), true);
+        List<TestCase> sampleCases = bundle.samples();
 
         if (sampleCases.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
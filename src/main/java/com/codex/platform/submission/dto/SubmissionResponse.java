@@ -24,6 +24,7 @@ public class SubmissionResponse {
     // Result details (null if not yet processed)
     private Long executionTimeMs;
     private Long memoryUsedMb;
+    private Long cpuTimeMs;
     private Integer passedTestCases;
     private Integer totalTestCases;
     private String stdout;
@@ -25,6 +25,7 @@ public class SubmissionResultDto implements Serializable {
 
     private Long executionTimeMs;
     private Long memoryUsedMb;
+    private Long cpuTimeMs;
     private Integer passedTestCases;
     private Integer totalTestCases;
     private String stdout;
@@ -23,6 +23,10 @@ public class SubmissionResult {
     @Column
     private Long memoryUsedMb;
 
+    /** Total user+sys CPU time across the judged tests; null when not measured (local mode). */
+    @Column
+    private Long cpuTimeMs;
+
     @Column
     private Integer passedTestCases;
 
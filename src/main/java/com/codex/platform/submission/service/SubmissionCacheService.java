@@ -55,6 +55,7 @@ public class SubmissionCacheService {
                 .status(status)
                 .executionTimeMs(result.getExecutionTimeMs())
                 .memoryUsedMb(result.getMemoryUsedMb())
+                .cpuTimeMs(result.getCpuTimeMs())
                 .passedTestCases(result.getPassedTestCases())
                 .totalTestCases(result.getTotalTestCases())
                 .stdout(result.getStdout())
@@ -92,7 +92,7 @@ public class SubmissionService {
                 int maxRetries = 3;
                 for (int attempt = 1; attempt <= maxRetries; attempt++) {
                     try {
-                        queueService.enqueue(submissionId);
+                        queueService.enqueue(submissionId, userId);
                         log.info("Submission enqueued after commit: {}", submissionId);
                         return;
                     } catch (Exception e) {
@@ -155,6 +155,7 @@ public class SubmissionService {
                     if (cached.getStatus() != null) builder.status(cached.getStatus());
                     builder.executionTimeMs(cached.getExecutionTimeMs())
                             .memoryUsedMb(cached.getMemoryUsedMb())
+                            .cpuTimeMs(cached.getCpuTimeMs())
                             .passedTestCases(cached.getPassedTestCases())
                             .totalTestCases(cached.getTotalTestCases())
                             .stdout(cached.getStdout())
@@ -165,6 +166,7 @@ public class SubmissionService {
                     submissionResultRepository.findById(submissionId).ifPresent(result -> {
                         builder.executionTimeMs(result.getExecutionTimeMs())
                                 .memoryUsedMb(result.getMemoryUsedMb())
+                                .cpuTimeMs(result.getCpuTimeMs())
                                 .passedTestCases(result.getPassedTestCases())
                                 .totalTestCases(result.getTotalTestCases())
                                 .stdout(result.getStdout())
@@ -203,6 +205,7 @@ public class SubmissionService {
                     submissionResultRepository.findById(submission.getId()).ifPresent(result -> {
                         builder.executionTimeMs(result.getExecutionTimeMs())
                                 .memoryUsedMb(result.getMemoryUsedMb())
+                                .cpuTimeMs(result.getCpuTimeMs())
                                 .passedTestCases(result.getPassedTestCases())
                                 .totalTestCases(result.getTotalTestCases())
                                 .stdout(result.getStdout())
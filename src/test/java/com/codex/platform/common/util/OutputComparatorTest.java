@@ -0,0 +1,104 @@
+package com.codex.platform.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputComparatorTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1 2 3|1 2 3",
+            "1 2 3|'1 2 3\n'",
+            "1 2 3|'  1 2 3  \n\n\n'",
+            "'a\nb'|'a\r\nb'",
+            "'a\nb'|'a\rb'",
+            "'a\nb'|'a   \t\nb'",
+            "'a\n\nb'|'a\n  \t\nb'",
+            "'a\n  b'|'a\n  b'",
+            "'a\n  b'|'a\nb'",
+            "'a b'|'a  b'",
+            "'a\tb'|'a b'",
+            "abc|abcd",
+            "abcd|abc",
+            "''|'   \n\t'",
+            "'héllo wörld ✓'|'héllo wörld ✓\n'",
+            "'𝄞 x'|'𝄞 x'",
+    })
+    void agreesWithOutputNormalizer(String expected, String actual) {
+        assertThat(OutputComparator.matches(expected, actual))
+                .isEqualTo(OutputNormalizer.areEqual(expected, actual));
+    }
+
+    @Test
+    void agreesWithOutputNormalizerOnRandomOutputs() {
+        Random random = new Random(42);
+        String[] alphabet = {"a", "b", " ", "\t", "\n", "\r", "\r\n", "\f", "é"};
+        for (int i = 0; i < 20_000; i++) {
+            String expected = randomString(random, alphabet);
+            String actual = random.nextInt(3) == 0 ? perturbWhitespace(random, expected)
+                    : randomString(random, alphabet);
+            assertThat(OutputComparator.matches(expected, actual))
+                    .as("expected=%s actual=%s", escape(expected), escape(actual))
+                    .isEqualTo(OutputNormalizer.areEqual(expected, actual));
+        }
+    }
+
+    @Test
+    void matchesWhenOutputArrivesInArbitraryChunks() {
+        String expected = "3\n1 2 3\nyes";
+        byte[] actual = "  3 \r\n1 2 3   \r\nyes\n\n".getBytes(StandardCharsets.UTF_8);
+
+        OutputComparator comparator = new OutputComparator(expected, 1024);
+        for (int i = 0; i < actual.length; i += 3) {
+            comparator.write(actual, i, Math.min(3, actual.length - i));
+        }
+
+        assertThat(comparator.verdict()).isEqualTo(OutputComparator.Verdict.MATCH);
+    }
+
+    @Test
+    void stopsAtFirstMismatch() {
+        OutputComparator comparator = new OutputComparator("1\n2\n3", 1024);
+        comparator.write("1\n5\n");
+
+        assertThat(comparator.isDecided()).isTrue();
+        assertThat(comparator.verdict()).isEqualTo(OutputComparator.Verdict.MISMATCH);
+    }
+
+    @Test
+    void reportsOutputLimitExceededPastExpectedLengthPlusSlack() {
+        OutputComparator comparator = new OutputComparator("ok", 10);
+        byte[] chunk = "ok\n\n\n\n\n\n\n\n\n\n\n\n".getBytes(StandardCharsets.UTF_8);
+        comparator.write(chunk, 0, chunk.length);
+
+        assertThat(comparator.isLimitExceeded()).isTrue();
+        assertThat(comparator.verdict()).isEqualTo(OutputComparator.Verdict.OUTPUT_LIMIT_EXCEEDED);
+    }
+
+    private static String randomString(Random random, String[] alphabet) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+
+    /** Same tokens, with whitespace variations the normalizer is supposed to ignore. */
+    private static String perturbWhitespace(Random random, String s) {
+        String out = s.replace("\n", random.nextBoolean() ? "\r\n" : " \n");
+        if (random.nextBoolean()) out = "\n " + out;
+        if (random.nextBoolean()) out = out + " \t\n";
+        return out;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t").replace("\f", "\\f");
+    }
+}
@@ -0,0 +1,103 @@
+package com.codex.platform.execution.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgentRouterTest {
+
+    private AgentRouter router;
+    private AgentEndpoint a;
+    private AgentEndpoint b;
+
+    @BeforeEach
+    void setUp() {
+        // health polling off: snapshots are fed by hand
+        router = new AgentRouter("http://a:8081, http://b:8081/", "", "token", 1000, 0, 2, 60_000, 8192, 1,
+                new SimpleMeterRegistry());
+        router.init();
+        a = router.endpoints().get(0);
+        b = router.endpoints().get(1);
+    }
+
+    @Test
+    void picksAgentWithMostFreeSlots() {
+        a.recordHealth(4, 1, 0);
+        b.recordHealth(4, 3, 0);
+
+        assertThat(router.pick(Set.of())).isSameAs(b);
+    }
+
+    @Test
+    void countsOwnDispatchesAndQueuedJobsSinceLastPoll() {
+        a.recordHealth(4, 3, 0);
+        b.recordHealth(4, 3, 1);
+        assertThat(router.pick(Set.of())).isSameAs(a);
+
+        a.begin();
+        a.begin();
+        assertThat(a.estimatedFreeSlots()).isEqualTo(1.0);
+        assertThat(router.pick(Set.of())).isSameAs(b);
+    }
+
+    @Test
+    void skipsExcludedAgentUnlessNothingElseIsLeft() {
+        a.recordHealth(4, 4, 0);
+        b.recordHealth(4, 1, 0);
+
+        assertThat(router.pick(Set.of(a))).isSameAs(b);
+
+        b.recordHealth(4, 1, 0);
+        openBreaker(b);
+        assertThat(router.pick(Set.of(a))).isSameAs(a);
+    }
+
+    @Test
+    void openBreakerTakesAgentOutOfRouting() {
+        a.recordHealth(4, 4, 0);
+        b.recordHealth(4, 1, 0);
+
+        openBreaker(a);
+
+        assertThat(a.breakerState()).isEqualTo(AgentEndpoint.BreakerState.OPEN);
+        assertThat(router.pick(Set.of())).isSameAs(b);
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        a.recordFailure(a.begin());
+        a.recordSuccess(a.begin());
+        a.recordFailure(a.begin());
+
+        assertThat(a.breakerState()).isEqualTo(AgentEndpoint.BreakerState.CLOSED);
+    }
+
+    @Test
+    void returnsNullWhenEveryBreakerIsOpen() {
+        openBreaker(a);
+        openBreaker(b);
+
+        assertThat(router.pick(Set.of())).isNull();
+    }
+
+    @Test
+    void failedHealthPollEjectsUntilAllAreEjected() {
+        a.recordHealth(4, 4, 0);
+        b.recordHealth(4, 1, 0);
+
+        a.recordHealthFailure();
+        assertThat(router.pick(Set.of())).isSameAs(b);
+
+        b.recordHealthFailure();
+        assertThat(router.pick(Set.of())).isNotNull();      // panic routing beats failing everything
+    }
+
+    private static void openBreaker(AgentEndpoint endpoint) {
+        endpoint.recordFailure(endpoint.begin());
+        endpoint.recordFailure(endpoint.begin());
+    }
+}
@@ -0,0 +1,150 @@
+package com.codex.platform.execution.client;
+
+import com.codex.platform.execution.client.dto.ExecuteRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestDataSyncTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /** Fake agent: the blob store plus a log of which endpoints were hit. */
+    private final Map<String, String> stored = new ConcurrentHashMap<>();
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean blobsSupported = true;
+
+    private HttpServer server;
+    private AgentRouter router;
+    private AgentEndpoint agent;
+    private TestDataSync sync;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/blobs", this::handle);
+        server.start();
+
+        router = new AgentRouter("http://127.0.0.1:" + server.getAddress().getPort(), "", "token", 5_000, 0, 2,
+                60_000, 8192, 1, new SimpleMeterRegistry());
+        router.init();
+        agent = router.endpoints().get(0);
+        sync = new TestDataSync(16, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        router.shutdown();
+    }
+
+    @Test
+    void uploadsMissingBlobsOnceThenSendsOnlyHashes() {
+        String input = "1 2 3 4 5 6 7 8 9 10\n";
+        ExecuteRequest request = request(input, "55\n");
+
+        ExecuteRequest wire = sync.prepare(agent, request);
+
+        ExecuteRequest.TestCase testCase = wire.getTestCases().get(0);
+        assertThat(testCase.getStdin()).isNull();
+        assertThat(testCase.getStdinHash()).isEqualTo(TestDataSync.sha256(input));
+        assertThat(testCase.getExpectedStdout()).isEqualTo("55\n");       // under min-bytes: stays inline
+        assertThat(testCase.getExpectedStdoutHash()).isNull();
+        assertThat(stored).containsEntry(TestDataSync.sha256(input), input);
+        assertThat(calls).containsExactly("missing", "upload");
+        assertThat(request.getTestCases().get(0).getStdin()).isEqualTo(input);   // caller's request untouched
+
+        calls.clear();
+        ExecuteRequest again = sync.prepare(agent, request(input, "55\n"));
+
+        assertThat(again.getTestCases().get(0).getStdinHash()).isEqualTo(TestDataSync.sha256(input));
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void asksAgainAfterTheAgentRefusedAHash() {
+        String input = "a line long enough to dedup\n";
+        ExecuteRequest wire = sync.prepare(agent, request(input, null));
+        stored.clear();                                     // agent evicted it
+        calls.clear();
+
+        sync.forget(agent, wire);
+        sync.prepare(agent, request(input, null));
+
+        assertThat(calls).containsExactly("missing", "upload");
+        assertThat(stored).containsKey(TestDataSync.sha256(input));
+    }
+
+    @Test
+    void smallTestDataIsSentInlineWithoutNegotiation() {
+        ExecuteRequest request = request("3\n", "6\n");
+
+        assertThat(sync.prepare(agent, request)).isSameAs(request);
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void agentWithoutBlobEndpointsGetsInlineData() {
+        blobsSupported = false;
+        ExecuteRequest request = request("an input that would be deduplicated\n", null);
+
+        assertThat(sync.prepare(agent, request)).isSameAs(request);
+        assertThat(sync.prepare(agent, request)).isSameAs(request);
+        assertThat(calls).containsExactly("missing");        // not asked a second time
+    }
+
+    private static ExecuteRequest request(String stdin, String expected) {
+        return ExecuteRequest.builder()
+                .submissionId(UUID.randomUUID())
+                .testCases(List.of(ExecuteRequest.TestCase.builder()
+                        .id("t1").stdin(stdin).expectedStdout(expected).build()))
+                .build();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        calls.add(path.endsWith("/missing") ? "missing" : "upload");
+        if (!blobsSupported) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        JsonNode json = JSON.readTree(body);
+        if (path.endsWith("/missing")) {
+            List<String> missing = new ArrayList<>();
+            json.path("hashes").forEach(h -> {
+                if (!stored.containsKey(h.asText())) missing.add(h.asText());
+            });
+            byte[] response = JSON.writeValueAsBytes(Map.of("missing", missing));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } else {
+            json.path("blobs").fields().forEachRemaining(e -> stored.put(e.getKey(), e.getValue().asText()));
+            exchange.sendResponseHeaders(204, -1);
+        }
+        exchange.close();
+    }
+}
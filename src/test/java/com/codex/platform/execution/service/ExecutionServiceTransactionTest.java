@@ -0,0 +1,217 @@
+package com.codex.platform.execution.service;
+
+import com.codex.platform.common.enums.ProblemDifficulty;
+import com.codex.platform.common.enums.SubmissionStatus;
+import com.codex.platform.execution.client.ExecutorAgentClient;
+import com.codex.platform.execution.client.dto.ExecuteResponse;
+import com.codex.platform.execution.entity.Language;
+import com.codex.platform.execution.repository.LanguageRepository;
+import com.codex.platform.problem.entity.Problem;
+import com.codex.platform.problem.entity.TestCase;
+import com.codex.platform.problem.repository.ProblemRepository;
+import com.codex.platform.problem.repository.TestCaseRepository;
+import com.codex.platform.realtime.service.SseService;
+import com.codex.platform.submission.entity.Submission;
+import com.codex.platform.submission.repository.SubmissionRepository;
+import com.codex.platform.submission.service.AsyncResultPersister;
+import com.codex.platform.submission.service.SubmissionCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Proves judging runs without a DB connection checked out: N submissions
+ * sit in a slow agent call at the same time while the test counts the
+ * JDBC connections open at that moment.
+ */
+@DataJpaTest(properties = {
+        "execution.mode=remote",
+        "executor.agent.streaming=false"
+})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import({ExecutionService.class, JudgeBundleCache.class, ExecutionServiceTransactionTest.TrackingConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExecutionServiceTransactionTest {
+
+    private static final int CONCURRENT = 8;
+    private static final long AGENT_CALL_MS = 500;
+
+    @Autowired private ExecutionService executionService;
+    @Autowired private SubmissionRepository submissionRepository;
+    @Autowired private ProblemRepository problemRepository;
+    @Autowired private LanguageRepository languageRepository;
+    @Autowired private TestCaseRepository testCaseRepository;
+
+    @MockBean private DockerExecutor dockerExecutor;
+    @MockBean private ExecutorAgentClient executorAgentClient;
+    @MockBean private SseService sseService;
+    @MockBean private SubmissionCacheService cacheService;
+    @MockBean private AsyncResultPersister asyncResultPersister;
+    @MockBean private RedissonClient redissonClient;
+
+    private final List<UUID> submissionIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Language language = new Language();
+        language.setName("python-" + UUID.randomUUID());
+        language.setVersion("3.12");
+        language.setDockerImage("python:3.12-slim");
+        language.setFileExtension(".py");
+        language.setExecuteCommand("python3 solution.py");
+        language = languageRepository.save(language);
+
+        Problem problem = new Problem();
+        problem.setTitle("Slow judge");
+        problem.setDifficulty(ProblemDifficulty.EASY);
+        problem.setTimeLimitMs(1000);
+        problem.setMemoryLimitMb(256);
+        problem = problemRepository.save(problem);
+
+        TestCase testCase = new TestCase();
+        testCase.setProblemId(problem.getId());
+        testCase.setInput("1 2");
+        testCase.setExpectedOutput("3");
+        testCaseRepository.save(testCase);
+
+        for (int i = 0; i < CONCURRENT; i++) {
+            Submission submission = new Submission();
+            submission.setUserId(UUID.randomUUID());
+            submission.setProblemId(problem.getId());
+            submission.setLanguageId(language.getId());
+            submission.setSourceCode("print(3)");
+            submissionIds.add(submissionRepository.save(submission).getId());
+        }
+        TrackingDataSource.reset();
+    }
+
+    @Test
+    void concurrentLongExecutionsHoldNoConnectionWhileJudging() throws Exception {
+        CountDownLatch allJudging = new CountDownLatch(CONCURRENT);
+        Queue<Integer> openWhileJudging = new ConcurrentLinkedQueue<>();
+        when(executorAgentClient.execute(any())).thenAnswer(inv -> {
+            allJudging.countDown();
+            assertThat(allJudging.await(10, TimeUnit.SECONDS)).isTrue();
+            openWhileJudging.add(TrackingDataSource.OPEN.get());
+            Thread.sleep(AGENT_CALL_MS);
+            ExecuteResponse response = new ExecuteResponse();
+            response.setStatus("ACCEPTED");
+            response.setPassedTestCases(1);
+            response.setTotalTestCases(1);
+            return response;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (UUID id : submissionIds) {
+                runs.add(pool.submit(() -> executionService.executeSubmission(id)));
+            }
+            for (Future<?> run : runs) {
+                run.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(openWhileJudging).hasSize(CONCURRENT).containsOnly(0);
+        assertThat(TrackingDataSource.PEAK.get()).isBetween(1, CONCURRENT);
+        assertThat(TrackingDataSource.HOLD_MS).isNotEmpty()
+                .allSatisfy(holdMs -> assertThat(holdMs).isLessThan(AGENT_CALL_MS));
+        assertThat(submissionRepository.findAllById(submissionIds))
+                .extracting(Submission::getStatus)
+                .containsOnly(SubmissionStatus.RUNNING);       // phase 1 committed; persister is mocked
+    }
+
+    @TestConfiguration
+    static class TrackingConfig {
+        @Bean
+        static BeanPostProcessor trackingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ds && !(bean instanceof TrackingDataSource)
+                            ? new TrackingDataSource(ds) : bean;
+                }
+            };
+        }
+    }
+
+    /** Counts connections checked out and how long each was held. */
+    static final class TrackingDataSource extends DelegatingDataSource {
+        static final AtomicInteger OPEN = new AtomicInteger();
+        static final AtomicInteger PEAK = new AtomicInteger();
+        static final Queue<Long> HOLD_MS = new ConcurrentLinkedQueue<>();
+
+        TrackingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void reset() {
+            OPEN.set(0);
+            PEAK.set(0);
+            HOLD_MS.clear();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return track(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return track(super.getConnection(username, password));
+        }
+
+        private static Connection track(Connection connection) {
+            PEAK.accumulateAndGet(OPEN.incrementAndGet(), Math::max);
+            long openedAt = System.nanoTime();
+            AtomicInteger closed = new AtomicInteger();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && closed.getAndIncrement() == 0) {
+                            OPEN.decrementAndGet();
+                            HOLD_MS.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAt));
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (java.lang.reflect.InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.codex.platform.execution.service;
+
+import com.codex.platform.execution.entity.Language;
+import com.codex.platform.execution.repository.LanguageRepository;
+import com.codex.platform.problem.entity.Problem;
+import com.codex.platform.problem.entity.TestCase;
+import com.codex.platform.problem.repository.ProblemRepository;
+import com.codex.platform.problem.repository.TestCaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.StringCodec;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JudgeBundleCacheTest {
+
+    private ProblemRepository problemRepository;
+    private TestCaseRepository testCaseRepository;
+    private LanguageRepository languageRepository;
+    private RTopic topic;
+    private MessageListener<String> remoteListener;
+
+    @BeforeEach
+    void setUp() {
+        problemRepository = mock(ProblemRepository.class);
+        testCaseRepository = mock(TestCaseRepository.class);
+        languageRepository = mock(LanguageRepository.class);
+        topic = mock(RTopic.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private JudgeBundleCache cache(long maxBytes) {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(JudgeBundleCache.TOPIC, StringCodec.INSTANCE)).thenReturn(topic);
+        JudgeBundleCache cache = new JudgeBundleCache(problemRepository, testCaseRepository, languageRepository,
+                redissonClient, maxBytes, 0);
+        cache.subscribe();
+
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(topic).addListener(eq(String.class), listener.capture());
+        remoteListener = listener.getValue();
+        return cache;
+    }
+
+    @Test
+    void hotProblemIsServedWithoutDbReads() {
+        UUID problemId = problem(10);
+        JudgeBundleCache cache = cache(1 << 20);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.bundle(problemId)).get()
+                    .satisfies(b -> assertThat(b.testCases()).hasSize(1));
+        }
+
+        verify(problemRepository, times(1)).findById(problemId);
+        verify(testCaseRepository, times(1)).findByProblemId(problemId);
+        assertThat(cache.stats()).containsEntry("hits", 4L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBundleWhenOverByteBudget() {
+        UUID a = problem(1_000);
+        UUID b = problem(1_000);
+        UUID c = problem(1_000);
+        JudgeBundleCache cache = cache(2 * 3_000);     // each bundle is a little over 2 KB
+
+        cache.bundle(a);
+        cache.bundle(b);
+        cache.bundle(a);        // a is now most recently used
+        cache.bundle(c);        // evicts b
+
+        cache.bundle(a);
+        cache.bundle(b);
+        verify(problemRepository, times(1)).findById(a);
+        verify(problemRepository, times(2)).findById(b);
+        assertThat((long) cache.stats().get("evictions")).isGreaterThanOrEqualTo(1);
+        assertThat((long) cache.stats().get("bytes")).isLessThanOrEqualTo(2 * 3_000);
+    }
+
+    @Test
+    void localInvalidationEvictsAndBroadcasts() {
+        UUID problemId = problem(10);
+        JudgeBundleCache cache = cache(1 << 20);
+        cache.bundle(problemId);
+
+        cache.invalidateProblem(problemId);
+        cache.bundle(problemId);
+
+        verify(topic).publish("problem:" + problemId);
+        verify(problemRepository, times(2)).findById(problemId);
+    }
+
+    @Test
+    void remoteInvalidationEvictsLanguages() {
+        Language python = new Language();
+        python.setId(UUID.randomUUID());
+        python.setName("Python");
+        when(languageRepository.findAll()).thenReturn(List.of(python));
+        JudgeBundleCache cache = cache(1 << 20);
+
+        assertThat(cache.languageByName("Python")).contains(python);
+        assertThat(cache.language(python.getId())).contains(python);
+        remoteListener.onMessage("judge-bundle-invalidation", "languages");
+        assertThat(cache.language(python.getId())).contains(python);
+
+        verify(languageRepository, times(2)).findAll();
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotInstalled() {
+        UUID problemId = UUID.randomUUID();
+        Problem problem = new Problem();
+        problem.setId(problemId);
+        JudgeBundleCache[] holder = new JudgeBundleCache[1];
+        when(problemRepository.findById(problemId)).thenAnswer(inv -> {
+            holder[0].invalidateProblem(problemId);      // test cases updated mid-load
+            return Optional.of(problem);
+        });
+        when(testCaseRepository.findByProblemId(problemId)).thenReturn(List.of());
+        holder[0] = cache(1 << 20);
+
+        holder[0].bundle(problemId);
+        holder[0].bundle(problemId);
+
+        verify(testCaseRepository, times(2)).findByProblemId(problemId);
+    }
+
+    private UUID problem(int testCaseChars) {
+        UUID problemId = UUID.randomUUID();
+        Problem problem = new Problem();
+        problem.setId(problemId);
+        problem.setTimeLimitMs(1000);
+        TestCase testCase = new TestCase();
+        testCase.setProblemId(problemId);
+        testCase.setInput("x".repeat(testCaseChars));
+        testCase.setExpectedOutput("");
+        when(problemRepository.findById(problemId)).thenReturn(Optional.of(problem));
+        when(testCaseRepository.findByProblemId(problemId)).thenReturn(List.of(testCase));
+        return problemId;
+    }
+}
@@ -0,0 +1,51 @@
+package com.codex.platform.queue.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LaneSchedulerTest {
+
+    @Test
+    void servesLanesInProportionToWeightInterleaved() {
+        LaneScheduler scheduler = LaneScheduler.parse("priority:4, bulk:1");
+
+        List<String> firstChoices = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            firstChoices.add(scheduler.order().get(0));
+        }
+
+        assertThat(firstChoices).containsExactly(
+                "priority", "priority", "bulk", "priority", "priority",
+                "priority", "priority", "bulk", "priority", "priority");
+    }
+
+    @Test
+    void orderListsEveryLaneSoEmptyLanesFallThrough() {
+        LaneScheduler scheduler = LaneScheduler.parse("default:2,bulk:1,priority:5");
+
+        List<String> order = scheduler.order();
+
+        assertThat(order).containsExactly("priority", "default", "bulk");
+    }
+
+    @Test
+    void bareNameHasWeightOne() {
+        LaneScheduler scheduler = LaneScheduler.parse("default");
+
+        assertThat(scheduler.lanes()).containsExactly(new LaneScheduler.Lane("default", 1));
+        assertThat(scheduler.order()).containsExactly("default");
+        assertThat(scheduler.contains("default")).isTrue();
+        assertThat(scheduler.contains("bulk")).isFalse();
+    }
+
+    @Test
+    void rejectsInvalidSpec() {
+        assertThatThrownBy(() -> LaneScheduler.parse("default:0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LaneScheduler.parse(" , ")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.codex.platform.queue.worker;
+
+import com.codex.platform.execution.service.ExecutionService;
+import com.codex.platform.queue.service.QueueService;
+import com.codex.platform.queue.service.QueuedSubmission;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SubmissionWorkerTest {
+
+    private QueueService queueService;
+    private ExecutionService executionService;
+    private SubmissionWorker worker;
+
+    private final AtomicBoolean backlog = new AtomicBoolean(true);
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        queueService = mock(QueueService.class);
+        executionService = mock(ExecutionService.class);
+
+        when(executionService.isAsyncDispatchEnabled()).thenReturn(false);
+        when(executionService.executionCapacity()).thenReturn(3);
+        when(queueService.requiresLock()).thenReturn(false);
+        when(queueService.getQueueDepth()).thenAnswer(inv -> backlog.get() ? 10 : 0);
+        when(queueService.poll(anyString(), anyInt())).thenAnswer(inv -> {
+            Thread.sleep(5);
+            return backlog.get()
+                    ? List.of(new QueuedSubmission(UUID.randomUUID(), "default", null, 0, null, false))
+                    : List.of();
+        });
+        doAnswer(inv -> {
+            started.incrementAndGet();
+            Thread.sleep(50);
+            finished.incrementAndGet();
+            return null;
+        }).when(executionService).executeSubmission(any());
+
+        worker = new SubmissionWorker(queueService, executionService);
+        ReflectionTestUtils.setField(worker, "workerCount", 1);
+        ReflectionTestUtils.setField(worker, "maxWorkers", 8);
+        ReflectionTestUtils.setField(worker, "idleMs", 50L);
+        ReflectionTestUtils.setField(worker, "scaleIntervalMs", 10L);
+        ReflectionTestUtils.setField(worker, "scaleUpWaitMs", 2000L);
+        ReflectionTestUtils.setField(worker, "drainTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(worker, "maxInFlight", 16);
+        ReflectionTestUtils.setField(worker, "batchSize", 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.stop();
+    }
+
+    @Test
+    void growsToAgentCapacityUnderBacklogAndShrinksWhenIdle() {
+        worker.start();
+
+        awaitTrue(() -> workers() == 3);
+        assertThat(worker.stats()).containsEntry("ceiling", 3);
+
+        backlog.set(false);
+        awaitTrue(() -> workers() == 1);
+        assertThat((long) worker.stats().get("retired")).isEqualTo(2);
+    }
+
+    @Test
+    void shutdownLetsRunningSubmissionsFinish() {
+        worker.start();
+        awaitTrue(() -> started.get() >= 3);
+
+        worker.stop();
+
+        assertThat(finished.get()).isEqualTo(started.get());
+        assertThat(workers()).isZero();
+    }
+
+    private int workers() {
+        return (int) worker.stats().get("workers");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}